@@ -30,3 +30,31 @@ for hashLen in 256 384 512; do
   java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} decode ./jwt
   java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} verify --key ./secret-hs${hashLen}.bin ./jwt
 done
+
+# Batch modes and --stats.
+tr -d '\n' < ./claims.json > ./claims.ndjson
+java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} encode - --alg HS256 --key ./secret-hs256.bin --batch --stats < ./claims.ndjson > ./jwt
+java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} decode ./jwt --batch --ndjson --stats
+java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} verify --key ./secret-hs256.bin ./jwt --batch --stats
+
+# Load test token generation. The payload must not contain the variable claims.
+printf '{"iss":"load-test"}' > ./fixed-claims.json
+java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} generate --alg HS256 --key ./secret-hs256.bin --payload ./fixed-claims.json --count 1000 --stats > ./jwt
+java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} generate --alg RS256 --key ./rsa-private.pem --duration 1 --rate 100 > /dev/null
+
+# JWKS, the verification cache, warm-up and the jti denylist.
+printf '{"keys":[{"kty":"oct","alg":"HS256","k":"%s"}]}' "$(base64 -w0 < ./secret-hs256.bin | tr '+/' '-_' | tr -d '=')" > ./jwks.json
+printf 'revoked-1\nrevoked-2\n' > ./jtis
+java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} denylist ./jtis ./jtis.bin
+java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} verify --jwks ./jwks.json ./jwt --batch --cache --warmup=100 --deny-jti ./jtis.bin > /dev/null
+
+# The server, with reloading, over each request of the line protocol. It is stopped by SIGTERM, so that the agent writes its output.
+java -agentlib:native-image-agent=config-merge-dir=${OUTPUTDIR} -jar ${JAR} serve --socket ./jwt.sock --key ./secret-hs256.bin --reload --cache --warmup=100 \
+  --alg HS256 --signing-key ./secret-hs256.bin --stats &
+SERVER=$!
+while [ ! -S ./jwt.sock ]; do sleep 0.1; done
+printf 'PING\nENCODE {"sub":"1"}\nDECODE %s\nVERIFY %s\n' "$(head -1 ./jwt)" "$(head -1 ./jwt)" | nc -U -q 1 ./jwt.sock
+cp ./secret-hs256.bin ./secret-hs256.bin.tmp && mv ./secret-hs256.bin.tmp ./secret-hs256.bin
+sleep 1
+kill -TERM ${SERVER}
+wait ${SERVER} || true
@@ -0,0 +1,40 @@
+#!/bin/bash
+#
+# Measures time to first output of jwt-util.
+#
+#   $ bash ./measure-startup.sh ../target/jwt-util              # native image
+#   $ bash ./measure-startup.sh java -jar ../target/jwt-util.jar # JVM
+#
+# Each command runs RUNS times (default 20), and the min and median in milliseconds are printed.
+
+RUNS=${RUNS:-20}
+
+if [ $# -eq 0 ]; then
+  echo "Usage: $0 <jwt-util command...>" >&2
+  exit 1
+fi
+
+"$@" encode ./claims.json --alg HS256 --key ./secret-hs256.bin > ./jwt 2> /dev/null
+
+measure() {
+  local label=$1
+  shift
+  local times=()
+  for _ in $(seq "${RUNS}"); do
+    local start end
+    start=$(date +%s%N)
+    # head exits on the first byte, which is the time to first output.
+    "$@" 2> /dev/null | head -c 1 > /dev/null
+    end=$(date +%s%N)
+    times+=($(( (end - start) / 1000000 )))
+  done
+  local sorted
+  sorted=$(printf '%s\n' "${times[@]}" | sort -n)
+  printf '%-8s min=%4dms median=%4dms\n' "${label}" \
+    "$(echo "${sorted}" | head -n 1)" \
+    "$(echo "${sorted}" | sed -n "$(( (RUNS + 1) / 2 ))p")"
+}
+
+measure "help" "$@" --help
+measure "decode" "$@" decode ./jwt
+measure "verify" "$@" verify --key ./secret-hs256.bin ./jwt
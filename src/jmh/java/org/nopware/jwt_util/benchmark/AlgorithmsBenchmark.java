@@ -0,0 +1,39 @@
+package org.nopware.jwt_util.benchmark;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import org.nopware.jwt_util.Alg;
+import org.nopware.jwt_util.Algorithms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building algorithms by {@link Algorithms}, which includes parsing the key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlgorithmsBenchmark {
+    @Param({"HS256", "HS384", "HS512", "RS256", "RS384", "RS512", "ES256", "ES384", "ES512", "PS256", "PS384", "PS512", "NONE"})
+    private Alg alg;
+
+    private BenchmarkKeys.KeyMaterial keyMaterial;
+
+    @Setup
+    public void setup() throws Exception {
+        keyMaterial = BenchmarkKeys.generate(alg);
+    }
+
+    @Benchmark
+    public Algorithm forSigning() throws Exception {
+        return Algorithms.forSigning(alg, keyMaterial.getForSigning());
+    }
+
+    @Benchmark
+    public Algorithm forVerifying() throws Exception {
+        return Algorithms.forVerifying(alg, keyMaterial.getForVerifying());
+    }
+}
@@ -0,0 +1,61 @@
+package org.nopware.jwt_util.benchmark;
+
+import lombok.Value;
+import org.nopware.jwt_util.Alg;
+import org.nopware.jwt_util.KeyUtil;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * Key material for benchmarks.
+ * <p>
+ *     Keys are generated on the fly, so benchmarks don't depend on the key files for tests.
+ *     Keys are in the same format as {@link KeyUtil#readKeyOrSecret} returns. (the content of the PEM object, or the secret)
+ */
+class BenchmarkKeys {
+    @Value
+    static class KeyMaterial {
+        byte[] forSigning;
+        byte[] forVerifying;
+    }
+
+    static KeyMaterial generate(Alg alg) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+        return switch (alg) {
+            case HS256 -> secret(32);
+            case HS384 -> secret(48);
+            case HS512 -> secret(64);
+            case RS256, RS384, RS512 -> keyPair("RSA", 2048);
+            case PS256, PS384, PS512 -> keyPair("RSASSA-PSS", 2048);
+            case ES256 -> ecKeyPair("secp256r1");
+            case ES384 -> ecKeyPair("secp384r1");
+            case ES512 -> ecKeyPair("secp521r1");
+            case NONE -> new KeyMaterial(null, null);
+        };
+    }
+
+    private static KeyMaterial secret(int length) {
+        byte[] secret = KeyUtil.random(length);
+        return new KeyMaterial(secret, secret);
+    }
+
+    private static KeyMaterial keyPair(String algorithm, int bits) throws NoSuchAlgorithmException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(algorithm);
+        keyPairGenerator.initialize(bits);
+        return keyMaterialOf(keyPairGenerator.generateKeyPair());
+    }
+
+    private static KeyMaterial ecKeyPair(String curve) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec(curve));
+        return keyMaterialOf(keyPairGenerator.generateKeyPair());
+    }
+
+    private static KeyMaterial keyMaterialOf(KeyPair keyPair) {
+        // PKCS#8 for private keys, X.509 for public keys.
+        return new KeyMaterial(keyPair.getPrivate().getEncoded(), keyPair.getPublic().getEncoded());
+    }
+}
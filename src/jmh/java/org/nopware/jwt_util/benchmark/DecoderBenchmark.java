@@ -0,0 +1,56 @@
+package org.nopware.jwt_util.benchmark;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.nopware.jwt_util.Alg;
+import org.nopware.jwt_util.Algorithms;
+import org.nopware.jwt_util.Decoder;
+import org.nopware.jwt_util.Encoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Decoder#decode} and {@link Decoder#verify} for each algorithm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecoderBenchmark {
+    @Param({"HS256", "HS384", "HS512", "RS256", "RS384", "RS512", "ES256", "ES384", "ES512", "PS256", "PS384", "PS512", "NONE"})
+    private Alg alg;
+
+    @Param({"small", "large"})
+    private String payloadSize;
+
+    private Algorithm algorithm;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkKeys.KeyMaterial keyMaterial = BenchmarkKeys.generate(alg);
+        Algorithm algorithmForSigning = Algorithms.forSigning(alg, keyMaterial.getForSigning());
+        token = Encoder.encode(Optional.empty(), Payloads.of(payloadSize), algorithmForSigning);
+        algorithm = Algorithms.forVerifying(alg, keyMaterial.getForVerifying());
+    }
+
+    @Benchmark
+    public DecodedJWT decode() {
+        return Decoder.decode(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verify() {
+        return Decoder.verify(token, algorithm);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public DecodedJWT verifyMultiThreaded() {
+        return Decoder.verify(token, algorithm);
+    }
+}
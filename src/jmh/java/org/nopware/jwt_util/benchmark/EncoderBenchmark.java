@@ -0,0 +1,62 @@
+package org.nopware.jwt_util.benchmark;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.nopware.jwt_util.Alg;
+import org.nopware.jwt_util.Algorithms;
+import org.nopware.jwt_util.Encoder;
+import org.nopware.jwt_util.TokenTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Encoder#encode} and {@link TokenTemplate#encode} for each algorithm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncoderBenchmark {
+    @Param({"HS256", "HS384", "HS512", "RS256", "RS384", "RS512", "ES256", "ES384", "ES512", "PS256", "PS384", "PS512", "NONE"})
+    private Alg alg;
+
+    @Param({"small", "large"})
+    private String payloadSize;
+
+    private Algorithm algorithm;
+    private String payload;
+    private TokenTemplate template;
+
+    @Setup
+    public void setup() throws Exception {
+        algorithm = Algorithms.forSigning(alg, BenchmarkKeys.generate(alg).getForSigning());
+        payload = Payloads.of(payloadSize);
+
+        // The same claims, but "sub" and "iat" are spliced by the template.
+        ObjectNode fixedClaims = (ObjectNode) new ObjectMapper().readTree(payload);
+        fixedClaims.remove("sub");
+        fixedClaims.remove("iat");
+        template = new TokenTemplate(Optional.empty(), fixedClaims.toString(), algorithm);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Encoder.encode(Optional.empty(), payload, algorithm);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String encodeMultiThreaded() {
+        return Encoder.encode(Optional.empty(), payload, algorithm);
+    }
+
+    @Benchmark
+    public String encodeTemplate() {
+        return template.encode(1516239022L, 1516242622L, null, "1234567890");
+    }
+}
@@ -0,0 +1,78 @@
+package org.nopware.jwt_util.benchmark;
+
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.nopware.jwt_util.Alg;
+import org.nopware.jwt_util.KeyUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringWriter;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading keys by {@link KeyUtil}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyUtilBenchmark {
+    private BenchmarkKeys.KeyMaterial rsa;
+    private BenchmarkKeys.KeyMaterial rsaPss;
+    private BenchmarkKeys.KeyMaterial ec;
+    private String rsaPrivateKeyInPem;
+
+    @Setup
+    public void setup() throws Exception {
+        rsa = BenchmarkKeys.generate(Alg.RS256);
+        rsaPss = BenchmarkKeys.generate(Alg.PS256);
+        ec = BenchmarkKeys.generate(Alg.ES256);
+
+        StringWriter stringWriter = new StringWriter();
+        try (PemWriter pemWriter = new PemWriter(stringWriter)) {
+            pemWriter.writeObject(new PemObject("PRIVATE KEY", rsa.getForSigning()));
+        }
+        rsaPrivateKeyInPem = stringWriter.toString();
+    }
+
+    @Benchmark
+    public byte[] readPemObject() throws Exception {
+        return KeyUtil.readPemObject(rsaPrivateKeyInPem);
+    }
+
+    @Benchmark
+    public RSAPrivateKey readRSAPrivateKey() throws Exception {
+        return KeyUtil.readRSAPrivateKey(rsa.getForSigning());
+    }
+
+    @Benchmark
+    public RSAPublicKey readRSAPublicKey() throws Exception {
+        return KeyUtil.readRSAPublicKey(rsa.getForVerifying());
+    }
+
+    @Benchmark
+    public RSAPrivateKey readRSAPSSPrivateKey() throws Exception {
+        return KeyUtil.readRSAPSSPrivateKey(rsaPss.getForSigning());
+    }
+
+    @Benchmark
+    public RSAPublicKey readRSAPSSPublicKey() throws Exception {
+        return KeyUtil.readRSAPSSPublicKey(rsaPss.getForVerifying());
+    }
+
+    @Benchmark
+    public ECPrivateKey readECPrivateKey() throws Exception {
+        return KeyUtil.readECPrivateKey(ec.getForSigning());
+    }
+
+    @Benchmark
+    public ECPublicKey readECPublicKey() throws Exception {
+        return KeyUtil.readECPublicKey(ec.getForVerifying());
+    }
+}
@@ -0,0 +1,41 @@
+package org.nopware.jwt_util.benchmark;
+
+/**
+ * Payloads for benchmarks.
+ */
+class Payloads {
+    static final String SMALL = "{\"sub\":\"1234567890\",\"name\":\"John Doe\",\"iat\":1516239022}";
+
+    /**
+     * A payload of about 4 KiB, like a token with many roles and scopes.
+     */
+    static final String LARGE = large();
+
+    static String of(String size) {
+        return switch (size) {
+            case "small" -> SMALL;
+            case "large" -> LARGE;
+            default -> throw new IllegalArgumentException("Unknown payload size: " + size);
+        };
+    }
+
+    private static String large() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"sub\":\"1234567890\",\"name\":\"John Doe\",\"iat\":1516239022,\"roles\":[");
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("\"role-").append(i).append('"');
+        }
+        builder.append("],\"scope\":\"");
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append("scope:").append(i);
+        }
+        builder.append("\"}");
+        return builder.toString();
+    }
+}
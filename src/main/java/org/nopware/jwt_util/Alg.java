@@ -14,4 +14,21 @@ public enum Alg {
     PS384,
     PS512,
     NONE;
+
+    /**
+     * Returns the algorithm for the value of the "alg" header parameter.
+     *
+     * @param alg the value of the "alg" header parameter, e.g. "RS256" or "none"
+     * @return the algorithm
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    public static Alg fromHeader(String alg) throws IllegalArgumentException {
+        if ("none".equals(alg)) {
+            return NONE;
+        }
+        if (alg == null || NONE.name().equals(alg)) {
+            throw new IllegalArgumentException(KeyUtil.EXMSG_UNSUPPORTED_ALGORITHM + alg);
+        }
+        return valueOf(alg);
+    }
 }
@@ -0,0 +1,123 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.Value;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A cache of {@link Algorithm} objects built by {@link Algorithms}.
+ * <p>
+ *     Building an algorithm parses the key, which costs much more than signing or verifying a token.
+ *     The registry keeps built algorithms keyed by the algorithm and the SHA-256 fingerprint of the key,
+ *     so the key is parsed only once as long as the entry is not evicted.
+ *     The registry is bounded and evicts the least recently used entries.
+ * <p>
+ *     The registry is thread-safe.
+ */
+public class AlgorithmRegistry {
+    public static final long DEFAULT_MAXIMUM_SIZE = 64;
+
+    private enum Purpose {
+        SIGNING,
+        VERIFYING
+    }
+
+    @Value
+    private static class CacheKey {
+        Alg alg;
+        Purpose purpose;
+        HashCode fingerprint;
+    }
+
+    private final Cache<CacheKey, Algorithm> cache;
+
+    public AlgorithmRegistry() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize the maximum number of algorithms to keep
+     */
+    public AlgorithmRegistry(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Returns a cached algorithm for signing, or builds it by {@link Algorithms#forSigning(Alg, byte[])}.
+     *
+     * @param alg the algorithm
+     * @param key the key or secret
+     * @return Algorithm object for signing
+     * @throws IOException if the key cannot be read
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws InvalidKeySpecException if the key is invalid
+     */
+    public Algorithm forSigning(Alg alg, byte[] key) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        CacheKey cacheKey = new CacheKey(alg, Purpose.SIGNING, fingerprint(key));
+        return get(cacheKey, () -> Algorithms.forSigning(alg, key));
+    }
+
+    /**
+     * Returns a cached algorithm for verifying, or builds it by {@link Algorithms#forVerifying(Alg, byte[])}.
+     *
+     * @param alg the algorithm
+     * @param key the key or secret
+     * @return Algorithm object for verifying
+     * @throws IOException if the key cannot be read
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws InvalidKeySpecException if the key is invalid
+     */
+    public Algorithm forVerifying(Alg alg, byte[] key) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        CacheKey cacheKey = new CacheKey(alg, Purpose.VERIFYING, fingerprint(key));
+        return get(cacheKey, () -> Algorithms.forVerifying(alg, key));
+    }
+
+    /**
+     * Returns the number of cached algorithms. (approximately)
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static HashCode fingerprint(byte[] key) {
+        // The key is null for "none".
+        return Hashing.sha256().hashBytes(key == null ? new byte[0] : key);
+    }
+
+    private Algorithm get(CacheKey cacheKey, Callable<Algorithm> loader) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        try {
+            return cache.get(cacheKey, loader);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof NoSuchAlgorithmException noSuchAlgorithmException) {
+                throw noSuchAlgorithmException;
+            } else if (cause instanceof InvalidKeySpecException invalidKeySpecException) {
+                throw invalidKeySpecException;
+            }
+            throw new IllegalStateException(cause);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
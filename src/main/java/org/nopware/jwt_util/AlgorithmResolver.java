@@ -0,0 +1,39 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resolves the algorithm for verifying a token, typically from its header.
+ * <p>
+ *     Implementations must be thread-safe.
+ */
+public interface AlgorithmResolver {
+    /**
+     * Returns the algorithm for verifying the given token.
+     *
+     * @param decodedJWT the decoded token
+     * @return Algorithm object for verifying
+     * @throws JWTVerificationException if no key is available for the token
+     * @throws IOException if the key cannot be read
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws InvalidKeySpecException if the key is invalid
+     */
+    Algorithm resolve(DecodedJWT decodedJWT) throws JWTVerificationException, IOException, NoSuchAlgorithmException, InvalidKeySpecException;
+
+    /**
+     * Returns the algorithms built so far, e.g. for warming up them.
+     *
+     * @return the algorithms. Empty if the resolver builds algorithms only on resolving.
+     */
+    default Collection<Algorithm> algorithms() {
+        return List.of();
+    }
+}
@@ -1,12 +1,18 @@
 package org.nopware.jwt_util;
 
 import com.auth0.jwt.algorithms.Algorithm;
+import org.nopware.jwt_util.hsalg.HS256;
+import org.nopware.jwt_util.hsalg.HS384;
+import org.nopware.jwt_util.hsalg.HS512;
 import org.nopware.jwt_util.psalg.PS256;
 import org.nopware.jwt_util.psalg.PS384;
 import org.nopware.jwt_util.psalg.PS512;
+import org.nopware.jwt_util.stats.Phase;
+import org.nopware.jwt_util.stats.Stats;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPrivateKey;
@@ -14,6 +20,8 @@ import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
 
 public class Algorithms {
+    static final String EXMSG_KEY_DOES_NOT_FIT = "The key does not fit the algorithm: ";
+
     /**
      * Returns an algorithm for signing.
      * <p>
@@ -28,10 +36,19 @@ public class Algorithms {
      * @throws InvalidKeySpecException if the key is invalid
      */
     public static Algorithm forSigning(Alg alg, byte[] key) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        long start = Stats.start();
+        try {
+            return buildForSigning(alg, key);
+        } finally {
+            Stats.record(Phase.BUILD_KEY, start);
+        }
+    }
+
+    private static Algorithm buildForSigning(Alg alg, byte[] key) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
         return switch (alg) {
-            case HS256 -> Algorithm.HMAC256(key);
-            case HS384 -> Algorithm.HMAC384(key);
-            case HS512 -> Algorithm.HMAC512(key);
+            case HS256 -> new HS256(key);
+            case HS384 -> new HS384(key);
+            case HS512 -> new HS512(key);
             case RS256 -> {
                 RSAPrivateKey rsaPrivateKey256 = KeyUtil.readRSAPrivateKey(key);
                 yield Algorithm.RSA256(null, rsaPrivateKey256);
@@ -72,10 +89,19 @@ public class Algorithms {
         };
     }
     public static Algorithm forVerifying(Alg alg, byte[] key) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        long start = Stats.start();
+        try {
+            return buildForVerifying(alg, key);
+        } finally {
+            Stats.record(Phase.BUILD_KEY, start);
+        }
+    }
+
+    private static Algorithm buildForVerifying(Alg alg, byte[] key) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
         return switch (alg) {
-            case HS256 -> Algorithm.HMAC256(key);
-            case HS384 -> Algorithm.HMAC384(key);
-            case HS512 -> Algorithm.HMAC512(key);
+            case HS256 -> new HS256(key);
+            case HS384 -> new HS384(key);
+            case HS512 -> new HS512(key);
             case RS256 -> {
                 RSAPublicKey rsaPublicKey256 = KeyUtil.readRSAPublicKey(key);
                 yield Algorithm.RSA256(rsaPublicKey256, null);
@@ -115,4 +141,41 @@ public class Algorithms {
             case NONE -> Algorithm.none();
         };
     }
+
+    /**
+     * Returns an algorithm for verifying with a public key, such as a key from a JWKS.
+     *
+     * @param alg the algorithm. HS256, HS384, HS512 and NONE are not supported, because they have no public key.
+     * @param publicKey the public key
+     * @return Algorithm object for verifying
+     * @throws InvalidKeySpecException if the key does not fit the algorithm
+     */
+    public static Algorithm forVerifying(Alg alg, PublicKey publicKey) throws InvalidKeySpecException {
+        return switch (alg) {
+            case RS256 -> Algorithm.RSA256(rsaPublicKey(alg, publicKey), null);
+            case RS384 -> Algorithm.RSA384(rsaPublicKey(alg, publicKey), null);
+            case RS512 -> Algorithm.RSA512(rsaPublicKey(alg, publicKey), null);
+            case ES256 -> Algorithm.ECDSA256(ecPublicKey(alg, publicKey), null);
+            case ES384 -> Algorithm.ECDSA384(ecPublicKey(alg, publicKey), null);
+            case ES512 -> Algorithm.ECDSA512(ecPublicKey(alg, publicKey), null);
+            case PS256 -> new PS256(rsaPublicKey(alg, publicKey), null);
+            case PS384 -> new PS384(rsaPublicKey(alg, publicKey), null);
+            case PS512 -> new PS512(rsaPublicKey(alg, publicKey), null);
+            case HS256, HS384, HS512, NONE -> throw new InvalidKeySpecException(EXMSG_KEY_DOES_NOT_FIT + alg);
+        };
+    }
+
+    private static RSAPublicKey rsaPublicKey(Alg alg, PublicKey publicKey) throws InvalidKeySpecException {
+        if (publicKey instanceof RSAPublicKey rsaPublicKey) {
+            return rsaPublicKey;
+        }
+        throw new InvalidKeySpecException(EXMSG_KEY_DOES_NOT_FIT + alg);
+    }
+
+    private static ECPublicKey ecPublicKey(Alg alg, PublicKey publicKey) throws InvalidKeySpecException {
+        if (publicKey instanceof ECPublicKey ecPublicKey) {
+            return ecPublicKey;
+        }
+        throw new InvalidKeySpecException(EXMSG_KEY_DOES_NOT_FIT + alg);
+    }
 }
@@ -10,9 +10,15 @@ import java.net.URL;
 import java.util.Properties;
 
 public class Application {
+    // In the native image, this class is initialized at image build time (see the native profile in pom.xml),
+    // so config.properties is loaded and the command line model is built only once on building the image.
+    // slf4j is initialized at build time too, so the property is set at build time as well.
     static {
         System.setProperty("slf4j.internal.verbosity", "warn");
     }
+
+    private static final String IMAGE_NAME = loadImageName();
+
     private static String loadImageName() {
         URL configUrl = Resources.getResource("config.properties");
         try {
@@ -29,7 +35,7 @@ public class Application {
         public int execute(CommandLine.ParseResult parseResult) {
             boolean autoCompletionScriptRequied = parseResult.hasMatchedOption("--auto-completion-script");
             if (autoCompletionScriptRequied) {
-                String autoCompletionScript = AutoComplete.bash(loadImageName(), commandLine);
+                String autoCompletionScript = AutoComplete.bash(IMAGE_NAME, commandLine);
                 System.out.print(autoCompletionScript);
                 return CommandLine.ExitCode.OK;
             }
@@ -39,7 +45,7 @@ public class Application {
     }
 
     private static final CommandLine commandLine = new CommandLine(new CommandLineParser())
-            .setCommandName(loadImageName())
+            .setCommandName(IMAGE_NAME)
             .setExecutionStrategy(new ExecutionStrategy());
 
     static int execute(String[] args) {
@@ -0,0 +1,160 @@
+package org.nopware.jwt_util;
+
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a task for each input in parallel, and passes the results to a sink in input order.
+ * <p>
+ *     The batch runs as a pipeline of three stages connected by bounded queues:
+ *     <ol>
+ *         <li>a reader, which pulls the inputs,</li>
+ *         <li>workers, which run the task,</li>
+ *         <li>a writer, which passes the results to the sink in input order.</li>
+ *     </ol>
+ *     The reader and the workers run on virtual threads, and the writer runs on the calling thread.
+ *     When a stage is slower than the others, the queue before it fills up and blocks the stages before it,
+ *     so at most {@code threads * WINDOW_PER_THREAD} inputs are in flight however slow the sink is.
+ * <p>
+ *     The workers are long-lived, one per thread, so that thread-local caches of the task
+ *     (e.g. {@link java.security.Signature} instances) are reused across inputs.
+ */
+public class BatchRunner {
+    static final int WINDOW_PER_THREAD = 256;
+
+    // An input and its result. The same job is queued to a worker and to the writer.
+    private static class Job<T, R> {
+        final T input;
+        final CompletableFuture<R> result = new CompletableFuture<>();
+
+        Job(T input) {
+            this.input = input;
+        }
+    }
+
+    // Tells the workers and the writer that no input is left.
+    private static final Job<?, ?> END = new Job<>(null);
+
+    /**
+     * Returns the number of threads, or the number of processors for 0.
+     * <p>
+     *     Options default to 0 rather than the number of processors,
+     *     because the command line model may be built at image build time on another machine.
+     *
+     * @param threads the number of threads, or 0
+     * @return the number of threads
+     */
+    public static int threadsOrProcessors(int threads) {
+        return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    /**
+     * Runs the task for each input.
+     *
+     * <p>The task is called on worker threads and must be thread-safe.
+     * The sink is called on the calling thread.
+     *
+     * @param inputs the inputs. It is iterated on another thread.
+     * @param task the task for each input
+     * @param sink the sink for each result, called in input order
+     * @param threads the number of worker threads
+     * @throws RuntimeException if the task or the inputs throw an exception. The remaining inputs are not processed.
+     * @throws Error if the task or the inputs throw an error. The remaining inputs are not processed.
+     */
+    public static <T, R> void run(Iterator<T> inputs, Function<T, R> task, Consumer<R> sink, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+
+        int window = threads * WINDOW_PER_THREAD;
+        BlockingQueue<Job<T, R>> toWorkers = new ArrayBlockingQueue<>(window);
+        BlockingQueue<Job<T, R>> toWriter = new ArrayBlockingQueue<>(window);
+
+        ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            executorService.submit(() -> read(inputs, toWorkers, toWriter, threads));
+            for (int i = 0; i < threads; i++) {
+                executorService.submit(() -> work(task, toWorkers));
+            }
+            write(sink, toWriter);
+        } finally {
+            // Stop the reader and the workers if the batch failed.
+            executorService.shutdownNow();
+        }
+    }
+
+    private static <T, R> void read(Iterator<T> inputs, BlockingQueue<Job<T, R>> toWorkers, BlockingQueue<Job<T, R>> toWriter, int threads) {
+        try {
+            while (inputs.hasNext()) {
+                Job<T, R> job = new Job<>(inputs.next());
+                // The writer's queue first. It bounds the jobs in flight.
+                toWriter.put(job);
+                toWorkers.put(job);
+            }
+            for (int i = 0; i < threads; i++) {
+                toWorkers.put(end());
+            }
+            toWriter.put(end());
+        } catch (InterruptedException e) {
+            // The batch has failed.
+        } catch (Throwable e) {
+            // Pass the failure to the writer in input order. Errors too, or the writer would wait for the end forever.
+            Job<T, R> failed = new Job<>(null);
+            failed.result.completeExceptionally(e);
+            try {
+                toWriter.put(failed);
+            } catch (InterruptedException ignored) {
+                // The batch has failed.
+            }
+        }
+    }
+
+    private static <T, R> void work(Function<T, R> task, BlockingQueue<Job<T, R>> toWorkers) {
+        try {
+            Job<T, R> job;
+            while ((job = toWorkers.take()) != END) {
+                try {
+                    job.result.complete(task.apply(job.input));
+                } catch (Throwable e) {
+                    // Errors too, or the writer would wait for the result forever.
+                    job.result.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            // The batch has failed.
+        }
+    }
+
+    private static <T, R> void write(Consumer<R> sink, BlockingQueue<Job<T, R>> toWriter) {
+        try {
+            Job<T, R> job;
+            while ((job = toWriter.take()) != END) {
+                sink.accept(await(job.result));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, R> Job<T, R> end() {
+        return (Job<T, R>) END;
+    }
+
+    private static <R> R await(Future<R> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
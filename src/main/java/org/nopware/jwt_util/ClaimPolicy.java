@@ -0,0 +1,82 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.RegisteredClaims;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.IncorrectClaimException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.Verification;
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+
+/**
+ * The checks of the claims on verifying, in addition to the signature.
+ * <p>
+ *     The policy is a value, and is used as a part of the key of the verifier cache in {@link Decoder}.
+ *     "exp", "nbf" and "iat" are always checked if present.
+ */
+@Value
+@Builder
+public class ClaimPolicy {
+    /**
+     * Checks only the signature and the time claims without leeway.
+     */
+    public static final ClaimPolicy DEFAULT = ClaimPolicy.builder().build();
+
+    static final String EXMSG_REVOKED_JTI = "The Claim 'jti' is in the denylist.";
+
+    /**
+     * The leeway in seconds for "exp", "nbf" and "iat".
+     */
+    long leeway;
+
+    /**
+     * The expected "iss", or null not to check.
+     */
+    @Nullable
+    String issuer;
+
+    /**
+     * The expected "aud", or null not to check.
+     */
+    @Nullable
+    String audience;
+
+    /**
+     * The revoked "jti" values, or null not to check. A token without a string "jti" passes.
+     * Denylists are compared by identity.
+     */
+    @Nullable
+    JtiDenylist jtiDenylist;
+
+    Verification toVerification(Algorithm algorithm) {
+        Verification verification = JWT.require(algorithm).acceptLeeway(leeway);
+        if (issuer != null) {
+            verification = verification.withIssuer(issuer);
+        }
+        if (audience != null) {
+            verification = verification.withAudience(audience);
+        }
+        return verification;
+    }
+
+    /**
+     * Rejects the token if its "jti" is in the denylist.
+     * It is checked after the signature and the other claims, not to reveal the denylist to forged tokens.
+     *
+     * @param verified the verified token
+     * @return the verified token
+     * @throws IncorrectClaimException if the "jti" is revoked
+     */
+    DecodedJWT checkJtiDenylist(DecodedJWT verified) throws IncorrectClaimException {
+        if (jtiDenylist != null) {
+            String jti = verified.getId();
+            if (jti != null && jtiDenylist.contains(jti)) {
+                throw new IncorrectClaimException(EXMSG_REVOKED_JTI, RegisteredClaims.JWT_ID, verified.getClaim(RegisteredClaims.JWT_ID));
+            }
+        }
+        return verified;
+    }
+}
@@ -1,12 +1,36 @@
 package org.nopware.jwt_util;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Value;
+import org.nopware.jwt_util.stats.Phase;
+import org.nopware.jwt_util.stats.Stats;
+
+import java.util.concurrent.ExecutionException;
 
 public class Decoder {
 
+    static final long VERIFIER_CACHE_SIZE = 1024;
+
+    // Algorithms are compared by identity.
+    @Value
+    private static class VerifierKey {
+        Algorithm algorithm;
+        ClaimPolicy policy;
+    }
+
+    // (algorithm, policy) -> verifier.
+    // A verifier references its algorithm, so the cache is bounded by size rather than by weak keys,
+    // which would never be collected. The algorithms replaced by a key reload are evicted as they fall out of use.
+    static final Cache<VerifierKey, JWTVerifier> verifiers = CacheBuilder.newBuilder()
+            .maximumSize(VERIFIER_CACHE_SIZE)
+            .build();
+
     /**
      * Decodes the given token without verifying its signature.
      *
@@ -14,7 +38,51 @@ public class Decoder {
      * @return
      */
     public static DecodedJWT decode(String token) {
-        return JWT.decode(token);
+        long start = Stats.start();
+        try {
+            return JWT.decode(token);
+        } finally {
+            Stats.record(Phase.DECODE, start);
+        }
+    }
+
+    /**
+     * Splits the given token without decoding any segment. Each segment is decoded on first access.
+     *
+     * @param token
+     * @return
+     */
+    public static LazyToken decodeLazily(String token) {
+        return new LazyToken(token);
+    }
+
+    /**
+     * Returns a cached verifier for the algorithm with {@link ClaimPolicy#DEFAULT}.
+     *
+     * @param algorithm
+     * @return a thread-safe verifier
+     */
+    public static JWTVerifier verifier(Algorithm algorithm) {
+        return verifier(algorithm, ClaimPolicy.DEFAULT);
+    }
+
+    /**
+     * Returns a cached verifier for the algorithm and the policy.
+     * <p>
+     *     Building a verifier is much more costly than verifying a token with it.
+     *     Keep the returned verifier, or call this for each token. Both are cheap.
+     *
+     * @param algorithm
+     * @param policy
+     * @return a thread-safe verifier
+     */
+    public static JWTVerifier verifier(Algorithm algorithm, ClaimPolicy policy) {
+        try {
+            return verifiers.get(new VerifierKey(algorithm, policy), () -> policy.toVerification(algorithm).build());
+        } catch (ExecutionException e) {
+            // Never happens. The loader does not throw checked exceptions.
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -25,6 +93,51 @@ public class Decoder {
      * @return
      */
     public static DecodedJWT verify(String token, Algorithm algorithm) throws JWTVerificationException {
-        return JWT.require(algorithm).build().verify(token);
+        return verify(token, algorithm, ClaimPolicy.DEFAULT);
+    }
+
+    /**
+     * Verifies the given decoded token without decoding it again.
+     *
+     * @param decodedJWT
+     * @param algorithm
+     * @return
+     */
+    public static DecodedJWT verify(DecodedJWT decodedJWT, Algorithm algorithm) throws JWTVerificationException {
+        return verify(decodedJWT, algorithm, ClaimPolicy.DEFAULT);
+    }
+
+    /**
+     * Verifies the given decoded token with the policy without decoding it again.
+     *
+     * @param decodedJWT
+     * @param algorithm
+     * @param policy
+     * @return
+     */
+    public static DecodedJWT verify(DecodedJWT decodedJWT, Algorithm algorithm, ClaimPolicy policy) throws JWTVerificationException {
+        long start = Stats.start();
+        try {
+            return policy.checkJtiDenylist(verifier(algorithm, policy).verify(decodedJWT));
+        } finally {
+            Stats.record(Phase.VERIFY, start);
+        }
+    }
+
+    /**
+     * Decodes and verifies the given token with the policy.
+     *
+     * @param token
+     * @param algorithm
+     * @param policy
+     * @return
+     */
+    public static DecodedJWT verify(String token, Algorithm algorithm, ClaimPolicy policy) throws JWTVerificationException {
+        long start = Stats.start();
+        try {
+            return policy.checkJtiDenylist(verifier(algorithm, policy).verify(token));
+        } finally {
+            Stats.record(Phase.VERIFY, start);
+        }
     }
 }
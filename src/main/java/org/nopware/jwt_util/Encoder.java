@@ -1,16 +1,237 @@
 package org.nopware.jwt_util;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Value;
+import org.nopware.jwt_util.stats.Phase;
+import org.nopware.jwt_util.stats.Stats;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
+/**
+ * Encodes tokens.
+ * <p>
+ *     The header of a token depends only on the algorithm and the given header JSON,
+ *     so its base64url encoding is cached, and only the payload is serialized and encoded for each token.
+ *     The token is assembled in a per-thread buffer.
+ * <p>
+ *     The header is completed in the same way as auth0's {@code JWTCreator}:
+ *     {@code alg} is set, {@code typ} defaults to {@code JWT},
+ *     and {@code kid} is set if the algorithm has a signing key ID.
+ * <p>
+ *     The payload is also the same as by {@code JWTCreator.withPayload}: the last of duplicate names wins,
+ *     an integer must fit in a long, and {@code aud} keeps only strings, collapsing one string to a string.
+ */
 public class Encoder {
-    public static String encode(Optional<String> headerJson, String payloadJson, Algorithm algorithm) {
-        JWTCreator.Builder builder = JWT.create();
-        headerJson.map(builder::withHeader);
+    static final String EXMSG_INVALID_HEADER_JSON = "Invalid header JSON";
+    static final String EXMSG_INVALID_PAYLOAD_JSON = "Invalid payload JSON";
+    static final String EXMSG_UNSUPPORTED_CLAIM_VALUE = "Claim values must only be of types Map, List, Boolean, Integer, Long, Double, String, Date, Instant, and Null";
+
+    static final long HEADER_CACHE_SIZE = 64;
+
+    // Trailing content after the object is invalid.
+    private static final ObjectMapper objectMapper = JsonMapper.builder()
+            .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+            .build();
+
+    @Value
+    private static class HeaderKey {
+        String alg;
+        @Nullable String keyId;
+        @Nullable String headerJson;
+    }
+
+    // (alg, kid, header JSON) -> header in base64url
+    private static final Cache<HeaderKey, byte[]> headers = CacheBuilder.newBuilder()
+            .maximumSize(HEADER_CACHE_SIZE)
+            .build();
+
+    // Exposes the internal array, not to copy the serialized payload.
+    private static class PayloadBuffer extends ByteArrayOutputStream {
+        PayloadBuffer() {
+            super(1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private static final ThreadLocal<PayloadBuffer> payloadBuffers = ThreadLocal.withInitial(PayloadBuffer::new);
+
+    // The token being assembled. It grows for large tokens.
+    private static final ThreadLocal<byte[]> tokenBuffers = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    /**
+     * Encodes and signs a token.
+     *
+     * @param headerJson the header in JSON
+     * @param payloadJson the payload in JSON
+     * @param algorithm the algorithm for signing
+     * @return the token
+     * @throws IllegalArgumentException if the header or the payload is not a JSON object
+     * @throws com.auth0.jwt.exceptions.SignatureGenerationException if the token cannot be signed
+     */
+    public static String encode(Optional<String> headerJson, String payloadJson, Algorithm algorithm) throws IllegalArgumentException {
+        long start = Stats.start();
+        byte[] header;
+        byte[] payload;
+        try {
+            header = header(headerJson, algorithm);
+            payload = payload(payloadJson);
+        } finally {
+            Stats.record(Phase.ENCODE, start);
+        }
+
+        start = Stats.start();
+        try {
+            byte[] signature = algorithm.sign(header, payload);
+
+            byte[] token = tokenBuffer(header.length + 1 + payload.length + 1 + IOUtil.base64UrlEncodedLength(signature.length));
+            System.arraycopy(header, 0, token, 0, header.length);
+            int length = header.length;
+            token[length++] = '.';
+            System.arraycopy(payload, 0, token, length, payload.length);
+            length += payload.length;
+            token[length++] = '.';
+            length += IOUtil.base64UrlEncode(signature, 0, signature.length, token, length);
+            return new String(token, 0, length, StandardCharsets.US_ASCII);
+        } finally {
+            Stats.record(Phase.SIGN, start);
+        }
+    }
+
+    /**
+     * Returns the header in base64url for the algorithm. The result is cached, and must not be modified.
+     *
+     * @param headerJson the header in JSON
+     * @param algorithm the algorithm for signing
+     * @throws IllegalArgumentException if the header is not a JSON object
+     */
+    static byte[] header(Optional<String> headerJson, Algorithm algorithm) throws IllegalArgumentException {
+        HeaderKey key = new HeaderKey(algorithm.getName(), algorithm.getSigningKeyId(), headerJson.orElse(null));
+        byte[] header = headers.getIfPresent(key);
+        if (header == null) {
+            // Encoding the same header twice in a race is harmless.
+            header = encodeHeader(key);
+            headers.put(key, header);
+        }
+        return header;
+    }
+
+    private static byte[] encodeHeader(HeaderKey key) throws IllegalArgumentException {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(key.getHeaderJson() == null ? "{}" : key.getHeaderJson());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(EXMSG_INVALID_HEADER_JSON, e);
+        }
+        if (!(node instanceof ObjectNode headerNode)) {
+            throw new IllegalArgumentException(EXMSG_INVALID_HEADER_JSON);
+        }
+
+        headerNode.put("alg", key.getAlg());
+        if (!headerNode.has("typ")) {
+            headerNode.put("typ", "JWT");
+        }
+        if (key.getKeyId() != null) {
+            headerNode.put("kid", key.getKeyId());
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(headerNode);
+        } catch (JsonProcessingException e) {
+            // A tree read from JSON can always be written.
+            throw new IllegalStateException(e);
+        }
+        byte[] header = new byte[IOUtil.base64UrlEncodedLength(json.length)];
+        IOUtil.base64UrlEncode(json, 0, json.length, header, 0);
+        return header;
+    }
+
+    // Serializes the payload compactly, and returns it in base64url.
+    private static byte[] payload(String payloadJson) throws IllegalArgumentException {
+        PayloadBuffer json = payloadBuffers.get();
+        json.reset();
+        try {
+            objectMapper.writeValue(json, payloadNode(payloadJson));
+        } catch (IOException e) {
+            // A tree read from JSON can always be written.
+            throw new IllegalStateException(e);
+        }
+
+        byte[] payload = new byte[IOUtil.base64UrlEncodedLength(json.size())];
+        IOUtil.base64UrlEncode(json.array(), 0, json.size(), payload, 0);
+        return payload;
+    }
+
+    /**
+     * Reads and validates the payload as {@code JWTCreator.withPayload} does.
+     *
+     * @param payloadJson the payload in JSON
+     * @return the payload, with {@code aud} normalized
+     * @throws IllegalArgumentException if the payload is not a JSON object, or has an unsupported claim value
+     */
+    static ObjectNode payloadNode(String payloadJson) throws IllegalArgumentException {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(payloadJson);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(EXMSG_INVALID_PAYLOAD_JSON, e);
+        }
+        if (!(node instanceof ObjectNode payloadNode)) {
+            throw new IllegalArgumentException(EXMSG_INVALID_PAYLOAD_JSON);
+        }
+        validate(payloadNode);
+
+        JsonNode audience = payloadNode.get("aud");
+        if (audience != null && !audience.isTextual()) {
+            ArrayNode strings = payloadNode.arrayNode();
+            if (audience.isArray()) {
+                audience.forEach(element -> {
+                    if (element.isTextual()) {
+                        strings.add(element);
+                    }
+                });
+            }
+            if (strings.isEmpty()) {
+                payloadNode.remove("aud");
+            } else {
+                payloadNode.set("aud", strings.size() == 1 ? strings.get(0) : strings);
+            }
+        }
+        return payloadNode;
+    }
+
+    // JWTCreator reads an integer beyond a long as a BigInteger, and rejects it at any depth.
+    private static void validate(JsonNode node) throws IllegalArgumentException {
+        if (node.isContainerNode()) {
+            node.forEach(Encoder::validate);
+        } else if (node.isIntegralNumber() && node.numberType() == JsonParser.NumberType.BIG_INTEGER) {
+            throw new IllegalArgumentException(EXMSG_UNSUPPORTED_CLAIM_VALUE);
+        }
+    }
 
-        return builder.withPayload(payloadJson)
-                .sign(algorithm);
+    private static byte[] tokenBuffer(int minLength) {
+        byte[] buffer = tokenBuffers.get();
+        if (buffer.length < minLength) {
+            buffer = new byte[Math.max(minLength, buffer.length * 2)];
+            tokenBuffers.set(buffer);
+        }
+        return buffer;
     }
 }
@@ -1,11 +1,20 @@
 package org.nopware.jwt_util;
 
 import com.google.common.base.Charsets;
+import org.nopware.jwt_util.stats.Phase;
+import org.nopware.jwt_util.stats.Stats;
 
 import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 
 public class IOUtil {
     /**
@@ -21,16 +30,68 @@ public class IOUtil {
     }
 
     public static byte[] readAllBytesFromFileOrStdin(@Nullable Path path) throws IOException {
-        if (path == null) {
-            return System.in.readAllBytes();
-        } else if (path.toString().equals("-") && Files.notExists(path)) {
-            // "-" is a special path that means read from stdin.
-            return System.in.readAllBytes();
+        long start = Stats.start();
+        try {
+            if (isStdin(path)) {
+                return System.in.readAllBytes();
+            } else {
+                return Files.readAllBytes(path);
+            }
+        } finally {
+            Stats.record(Phase.READ_FILE, start);
+        }
+    }
+
+    /**
+     * Returns true if the path means stdin.
+     *
+     * @param path the path to the file, or null for stdin, or "-" for stdin unless the file "-" exists.
+     */
+    public static boolean isStdin(@Nullable Path path) {
+        // "-" is a special path that means read from stdin.
+        return path == null || (path.toString().equals("-") && Files.notExists(path));
+    }
+
+    /**
+     * Returns true if the path is a regular file, which can be memory-mapped.
+     * Stdin, pipes, FIFOs and devices such as {@code /dev/fd/N} must be read as streams instead, since their size is unknown.
+     *
+     * @param path the path to the file, or null for stdin, or "-" for stdin unless the file "-" exists.
+     */
+    public static boolean isMappable(@Nullable Path path) {
+        return !isStdin(path) && Files.isRegularFile(path);
+    }
+
+    /**
+     * Opens a reader for a file or stdin.
+     *
+     * @param path the path to the file, or null to read from stdin, or "-" to read from stdin.
+     * @return the reader. Closing it closes the file, but not stdin.
+     * @throws IOException if the file cannot be opened
+     */
+    public static BufferedReader newBufferedReaderFromFileOrStdin(@Nullable Path path) throws IOException {
+        if (isStdin(path)) {
+            InputStream stdin = new FilterInputStream(System.in) {
+                @Override
+                public void close() {
+                    // Don't close stdin.
+                }
+            };
+            return new BufferedReader(new InputStreamReader(stdin, Charsets.UTF_8));
         } else {
-            return Files.readAllBytes(path);
+            return Files.newBufferedReader(path, Charsets.UTF_8);
         }
     }
 
+    /**
+     * Returns the remaining bytes of the buffer as an ASCII string, without moving the position of the buffer.
+     */
+    public static String asciiString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), bytes);
+        return new String(bytes, Charsets.US_ASCII);
+    }
+
     public static byte[] base64Decode(String base64) {
         return java.util.Base64.getUrlDecoder().decode(base64);
     }
@@ -38,4 +99,264 @@ public class IOUtil {
     public static String base64Encode(byte[] bytes) {
         return java.util.Base64.getUrlEncoder().encodeToString(bytes);
     }
+
+    /*
+     * Base64url (RFC 4648 section 5) codec on caller-provided buffers.
+     * Unlike base64Decode and base64Encode, these methods allocate nothing, so they can be used in hot loops.
+     * Encoding omits padding as JWT does. Decoding accepts input with or without padding.
+     */
+
+    private static final byte[] BASE64URL_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(Charsets.US_ASCII);
+
+    private static final byte[] BASE64URL_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL_VALUES, (byte) -1);
+        for (int i = 0; i < BASE64URL_ALPHABET.length; i++) {
+            BASE64URL_VALUES[BASE64URL_ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    static final String EXMSG_ILLEGAL_BASE64URL_LENGTH = "Illegal base64url length: ";
+    static final String EXMSG_ILLEGAL_BASE64URL_CHARACTER = "Illegal base64url character at ";
+
+    /**
+     * Returns the length of the base64url encoding without padding.
+     *
+     * @param length the length of the data to encode
+     */
+    public static int base64UrlEncodedLength(int length) {
+        return (length / 3) * 4 + (length % 3 == 0 ? 0 : length % 3 + 1);
+    }
+
+    /**
+     * Returns the length of the data decoded from base64url of the given length, without padding.
+     *
+     * @param length the length of the base64url encoding without padding
+     * @throws IllegalArgumentException if no base64url encoding has the length
+     */
+    public static int base64UrlDecodedLength(int length) throws IllegalArgumentException {
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException(EXMSG_ILLEGAL_BASE64URL_LENGTH + length);
+        }
+        return (length / 4) * 3 + (length % 4 == 0 ? 0 : length % 4 - 1);
+    }
+
+    /**
+     * Encodes bytes into base64url without padding.
+     *
+     * @param src the data to encode
+     * @param srcOffset the offset of the data in src
+     * @param length the length of the data
+     * @param dst the destination. It must have room for {@link #base64UrlEncodedLength(int)} bytes.
+     * @param dstOffset the offset in dst
+     * @return the number of bytes written into dst
+     */
+    public static int base64UrlEncode(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+        int s = srcOffset;
+        int d = dstOffset;
+        int end = srcOffset + length - length % 3;
+        while (s < end) {
+            int bits = (src[s++] & 0xff) << 16 | (src[s++] & 0xff) << 8 | (src[s++] & 0xff);
+            dst[d++] = BASE64URL_ALPHABET[bits >>> 18 & 0x3f];
+            dst[d++] = BASE64URL_ALPHABET[bits >>> 12 & 0x3f];
+            dst[d++] = BASE64URL_ALPHABET[bits >>> 6 & 0x3f];
+            dst[d++] = BASE64URL_ALPHABET[bits & 0x3f];
+        }
+        switch (length % 3) {
+            case 1 -> {
+                int bits = (src[s] & 0xff) << 16;
+                dst[d++] = BASE64URL_ALPHABET[bits >>> 18 & 0x3f];
+                dst[d++] = BASE64URL_ALPHABET[bits >>> 12 & 0x3f];
+            }
+            case 2 -> {
+                int bits = (src[s] & 0xff) << 16 | (src[s + 1] & 0xff) << 8;
+                dst[d++] = BASE64URL_ALPHABET[bits >>> 18 & 0x3f];
+                dst[d++] = BASE64URL_ALPHABET[bits >>> 12 & 0x3f];
+                dst[d++] = BASE64URL_ALPHABET[bits >>> 6 & 0x3f];
+            }
+            default -> {
+                // No remainder.
+            }
+        }
+        return d - dstOffset;
+    }
+
+    /**
+     * Encodes the remaining bytes of src into base64url without padding, and advances the positions of both buffers.
+     *
+     * @param src the data to encode
+     * @param dst the destination. It must have room for {@link #base64UrlEncodedLength(int)} bytes.
+     * @return the number of bytes written into dst
+     * @throws BufferOverflowException if dst does not have room for the encoding. Neither buffer is modified then.
+     */
+    public static int base64UrlEncode(ByteBuffer src, ByteBuffer dst) throws BufferOverflowException {
+        int length = src.remaining();
+        // The array-backed path writes past the limit of dst otherwise.
+        if (dst.remaining() < base64UrlEncodedLength(length)) {
+            throw new BufferOverflowException();
+        }
+        int written;
+        if (src.hasArray() && dst.hasArray()) {
+            written = base64UrlEncode(src.array(), src.arrayOffset() + src.position(), length,
+                    dst.array(), dst.arrayOffset() + dst.position());
+            dst.position(dst.position() + written);
+        } else {
+            int start = dst.position();
+            while (src.remaining() >= 3) {
+                int bits = (src.get() & 0xff) << 16 | (src.get() & 0xff) << 8 | (src.get() & 0xff);
+                dst.put(BASE64URL_ALPHABET[bits >>> 18 & 0x3f]);
+                dst.put(BASE64URL_ALPHABET[bits >>> 12 & 0x3f]);
+                dst.put(BASE64URL_ALPHABET[bits >>> 6 & 0x3f]);
+                dst.put(BASE64URL_ALPHABET[bits & 0x3f]);
+            }
+            if (src.remaining() == 1) {
+                int bits = (src.get() & 0xff) << 16;
+                dst.put(BASE64URL_ALPHABET[bits >>> 18 & 0x3f]);
+                dst.put(BASE64URL_ALPHABET[bits >>> 12 & 0x3f]);
+            } else if (src.remaining() == 2) {
+                int bits = (src.get() & 0xff) << 16 | (src.get() & 0xff) << 8;
+                dst.put(BASE64URL_ALPHABET[bits >>> 18 & 0x3f]);
+                dst.put(BASE64URL_ALPHABET[bits >>> 12 & 0x3f]);
+                dst.put(BASE64URL_ALPHABET[bits >>> 6 & 0x3f]);
+            }
+            written = dst.position() - start;
+        }
+        src.position(src.position() + src.remaining());
+        return written;
+    }
+
+    /**
+     * Decodes base64url in ASCII bytes.
+     *
+     * @param src the base64url encoding, with or without padding
+     * @param srcOffset the offset of the encoding in src
+     * @param length the length of the encoding
+     * @param dst the destination. It must have room for {@link #base64UrlDecodedLength(int)} bytes.
+     * @param dstOffset the offset in dst
+     * @return the number of bytes written into dst
+     * @throws IllegalArgumentException if src is not a base64url encoding
+     */
+    public static int base64UrlDecode(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) throws IllegalArgumentException {
+        int end = srcOffset + length;
+        // Strip padding.
+        for (int i = 0; i < 2 && end > srcOffset && src[end - 1] == '='; i++) {
+            end--;
+        }
+        base64UrlDecodedLength(end - srcOffset); // Check the length.
+
+        int bits = 0;
+        int count = 0;
+        int d = dstOffset;
+        for (int s = srcOffset; s < end; s++) {
+            bits = bits << 6 | base64UrlValue(src[s], s - srcOffset);
+            if (++count == 4) {
+                dst[d++] = (byte) (bits >>> 16);
+                dst[d++] = (byte) (bits >>> 8);
+                dst[d++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        return d - dstOffset + flushBase64UrlRemainder(bits, count, dst, d);
+    }
+
+    /**
+     * Decodes base64url in a string, such as a segment of a token.
+     *
+     * @param src the string containing the base64url encoding, with or without padding
+     * @param start the start index of the encoding in src
+     * @param end the end index (exclusive) of the encoding in src
+     * @param dst the destination. It must have room for {@link #base64UrlDecodedLength(int)} bytes.
+     * @param dstOffset the offset in dst
+     * @return the number of bytes written into dst
+     * @throws IllegalArgumentException if src is not a base64url encoding
+     */
+    public static int base64UrlDecode(CharSequence src, int start, int end, byte[] dst, int dstOffset) throws IllegalArgumentException {
+        for (int i = 0; i < 2 && end > start && src.charAt(end - 1) == '='; i++) {
+            end--;
+        }
+        base64UrlDecodedLength(end - start); // Check the length.
+
+        int bits = 0;
+        int count = 0;
+        int d = dstOffset;
+        for (int s = start; s < end; s++) {
+            bits = bits << 6 | base64UrlValue(src.charAt(s), s - start);
+            if (++count == 4) {
+                dst[d++] = (byte) (bits >>> 16);
+                dst[d++] = (byte) (bits >>> 8);
+                dst[d++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        return d - dstOffset + flushBase64UrlRemainder(bits, count, dst, d);
+    }
+
+    /**
+     * Decodes the remaining base64url bytes of src, and advances the positions of both buffers.
+     *
+     * @param src the base64url encoding in ASCII, with or without padding
+     * @param dst the destination. It must have room for {@link #base64UrlDecodedLength(int)} bytes.
+     * @return the number of bytes written into dst
+     * @throws IllegalArgumentException if src is not a base64url encoding
+     */
+    public static int base64UrlDecode(ByteBuffer src, ByteBuffer dst) throws IllegalArgumentException {
+        int start = src.position();
+        int end = src.limit();
+        for (int i = 0; i < 2 && end > start && src.get(end - 1) == '='; i++) {
+            end--;
+        }
+        int decodedLength = base64UrlDecodedLength(end - start);
+        if (dst.remaining() < decodedLength) {
+            throw new BufferOverflowException();
+        }
+
+        int bits = 0;
+        int count = 0;
+        int d = dst.position();
+        for (int s = start; s < end; s++) {
+            bits = bits << 6 | base64UrlValue(src.get(s), s - start);
+            if (++count == 4) {
+                dst.put(d++, (byte) (bits >>> 16));
+                dst.put(d++, (byte) (bits >>> 8));
+                dst.put(d++, (byte) bits);
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 2) {
+            dst.put(d++, (byte) (bits >>> 4));
+        } else if (count == 3) {
+            dst.put(d++, (byte) (bits >>> 10));
+            dst.put(d++, (byte) (bits >>> 2));
+        }
+
+        src.position(src.limit());
+        dst.position(d);
+        return decodedLength;
+    }
+
+    private static int base64UrlValue(int c, int index) throws IllegalArgumentException {
+        int value = c >= 0 && c < 128 ? BASE64URL_VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException(EXMSG_ILLEGAL_BASE64URL_CHARACTER + index);
+        }
+        return value;
+    }
+
+    private static int flushBase64UrlRemainder(int bits, int count, byte[] dst, int d) {
+        // 2 characters have 12 bits for 1 byte, and 3 characters have 18 bits for 2 bytes.
+        if (count == 2) {
+            dst[d] = (byte) (bits >>> 4);
+            return 1;
+        } else if (count == 3) {
+            dst[d] = (byte) (bits >>> 10);
+            dst[d + 1] = (byte) (bits >>> 2);
+            return 2;
+        }
+        return 0;
+    }
 }
@@ -0,0 +1,238 @@
+package org.nopware.jwt_util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A set of revoked {@code jti} values, stored off-heap.
+ * <p>
+ *     The set is an open-addressing hash table of 64-bit fingerprints (Murmur3) with linear probing,
+ *     at most half full. A lookup touches one or a few adjacent slots, whatever the size of the set.
+ *     The table lives in a direct or memory-mapped buffer, so tens of millions of entries add nothing to the heap,
+ *     and the garbage collector never scans them.
+ *     Two different values share a fingerprint with a probability of about n / 2^64,
+ *     i.e. 10^-12 for 10 million entries, so a fingerprint match is taken as a match.
+ * <p>
+ *     The table can be written to a file by {@link #write(Path)}, and {@link #open(Path)} maps the file without reading it,
+ *     so a compiled denylist loads in milliseconds. A text file of one value per line is read and hashed on open instead.
+ * <p>
+ *     The denylist is immutable and thread-safe.
+ */
+public class JtiDenylist {
+    static final byte[] MAGIC = "JTIDENY1".getBytes(StandardCharsets.US_ASCII);
+
+    static final String EXMSG_TOO_LARGE = "The denylist is too large: ";
+    static final String EXMSG_BROKEN_FILE = "The denylist file is broken: ";
+
+    // magic, capacity, count
+    private static final int HEADER_SIZE = 8 + 8 + 8;
+
+    // A buffer is indexed by int, so the table has at most this many slots.
+    private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - HEADER_SIZE) / Long.BYTES);
+
+    // 0 marks an empty slot. A fingerprint of 0 is stored as 1.
+    private static final long EMPTY = 0;
+
+    private static final HashFunction hashFunction = Hashing.murmur3_128();
+
+    // The whole file image: the header followed by the slots.
+    private final ByteBuffer buffer;
+    private final int mask;
+    private final long count;
+
+    private JtiDenylist(ByteBuffer buffer, int capacity, long count) {
+        this.buffer = buffer;
+        this.mask = capacity - 1;
+        this.count = count;
+    }
+
+    /**
+     * Builds a denylist of the values in a direct buffer.
+     *
+     * @param jtis the revoked values. Duplicates are counted once.
+     * @throws IllegalArgumentException if the values do not fit in a table
+     */
+    public static JtiDenylist of(Iterable<String> jtis) throws IllegalArgumentException {
+        Fingerprints fingerprints = new Fingerprints();
+        for (String jti : jtis) {
+            fingerprints.add(jti);
+        }
+        return fingerprints.build();
+    }
+
+    /**
+     * Opens a denylist file.
+     * <p>
+     *     A file written by {@link #write(Path)} is memory-mapped.
+     *     Any other file is read as text of one value per line, and blank lines are skipped.
+     *
+     * @param path the denylist file
+     * @throws IOException if the file cannot be read, or is broken
+     * @throws IllegalArgumentException if the values do not fit in a table
+     */
+    public static JtiDenylist open(Path path) throws IOException, IllegalArgumentException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= HEADER_SIZE && hasMagic(channel)) {
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException(EXMSG_TOO_LARGE + path);
+                }
+                // The mapping stays valid after closing the channel.
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return fromImage(mapped, path);
+            }
+        }
+        return readText(path);
+    }
+
+    /**
+     * Writes the table to a file, which {@link #open(Path)} maps.
+     * <p>
+     *     The table is written to a temporary file in the same directory, which then replaces the file atomically.
+     *     A process which has mapped the previous file keeps reading it, rather than crashing on a truncated mapping.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        // Not Files.createTempFile, which would make the file readable only by the owner.
+        Path temporary = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer image = buffer.duplicate().clear();
+                while (image.hasRemaining()) {
+                    channel.write(image);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns true if the value is revoked.
+     *
+     * @param jti the value of the {@code jti} claim
+     */
+    public boolean contains(String jti) {
+        long fingerprint = fingerprint(jti);
+        int slot = (int) fingerprint & mask;
+        // A table written by this class always has an empty slot, but a broken file may have none.
+        for (int probes = 0; probes <= mask; probes++) {
+            long stored = buffer.getLong(HEADER_SIZE + slot * Long.BYTES);
+            if (stored == fingerprint) {
+                return true;
+            }
+            if (stored == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of distinct fingerprints.
+     */
+    public long size() {
+        return count;
+    }
+
+    private static long fingerprint(String jti) {
+        long fingerprint = hashFunction.hashString(jti, StandardCharsets.UTF_8).asLong();
+        return fingerprint == EMPTY ? 1 : fingerprint;
+    }
+
+    // At least twice the number of entries, so that probe sequences stay short.
+    private static int capacityFor(long entries) throws IllegalArgumentException {
+        if (entries > MAX_CAPACITY / 2) {
+            throw new IllegalArgumentException(EXMSG_TOO_LARGE + entries + " entries");
+        }
+        return Math.max(16, Integer.highestOneBit((int) Math.max(1, entries * 2 - 1)) << 1);
+    }
+
+    // Fingerprints are collected in a primitive array first, to size the table before filling it.
+    private static class Fingerprints {
+        private long[] fingerprints = new long[1024];
+        private int entries;
+
+        void add(String jti) throws IllegalArgumentException {
+            if (entries == fingerprints.length) {
+                if (entries >= MAX_CAPACITY / 2) {
+                    throw new IllegalArgumentException(EXMSG_TOO_LARGE + "more than " + entries + " entries");
+                }
+                fingerprints = Arrays.copyOf(fingerprints, Math.min(entries * 2, MAX_CAPACITY / 2));
+            }
+            fingerprints[entries++] = fingerprint(jti);
+        }
+
+        JtiDenylist build() throws IllegalArgumentException {
+            int capacity = capacityFor(entries);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_SIZE + capacity * Long.BYTES);
+            int mask = capacity - 1;
+            long count = 0;
+            for (int i = 0; i < entries; i++) {
+                long fingerprint = fingerprints[i];
+                int slot = (int) fingerprint & mask;
+                long stored;
+                while ((stored = buffer.getLong(HEADER_SIZE + slot * Long.BYTES)) != EMPTY && stored != fingerprint) {
+                    slot = (slot + 1) & mask;
+                }
+                if (stored == EMPTY) {
+                    buffer.putLong(HEADER_SIZE + slot * Long.BYTES, fingerprint);
+                    count++;
+                }
+            }
+            buffer.put(0, MAGIC);
+            buffer.putLong(MAGIC.length, capacity);
+            buffer.putLong(MAGIC.length + 8, count);
+            return new JtiDenylist(buffer.asReadOnlyBuffer(), capacity, count);
+        }
+    }
+
+    private static JtiDenylist readText(Path path) throws IOException, IllegalArgumentException {
+        Fingerprints fingerprints = new Fingerprints();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String jti = line.strip();
+                if (!jti.isEmpty()) {
+                    fingerprints.add(jti);
+                }
+            }
+        }
+        return fingerprints.build();
+    }
+
+    private static boolean hasMagic(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+            // Read until full.
+        }
+        return !magic.hasRemaining() && ByteBuffer.wrap(MAGIC).equals(magic.flip());
+    }
+
+    private static JtiDenylist fromImage(ByteBuffer image, Path path) throws IOException {
+        long capacity = image.getLong(MAGIC.length);
+        long count = image.getLong(MAGIC.length + 8);
+        if (capacity < 1 || capacity > MAX_CAPACITY || Long.bitCount(capacity) != 1
+                || count < 0 || count > capacity / 2
+                || image.capacity() != HEADER_SIZE + capacity * Long.BYTES) {
+            throw new IOException(EXMSG_BROKEN_FILE + path);
+        }
+        return new JtiDenylist(image, (int) capacity, count);
+    }
+}
@@ -0,0 +1,156 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resolves the algorithm from the "alg" header and a single key or secret file.
+ * <p>
+ *     The file is read once on construction.
+ *     The key is parsed on the first token for each algorithm, and the built algorithm is reused afterward.
+ */
+public class KeyFileAlgorithmResolver implements AlgorithmResolver {
+    static final String EXMSG_NO_ALGORITHM_FITS = "The key or secret fits no algorithm.";
+    static final String EXMSG_KEY_TYPE_CHANGED = "The key fits none of the algorithms of the previous key: ";
+
+    private static final String PEM_BEGIN = "-----BEGIN ";
+
+    private final byte[] keyOrSecretFileContent;
+
+    private final Map<Alg, Algorithm> algorithms = new ConcurrentHashMap<>();
+
+    /**
+     * @param keyOrSecretFile the file containing the key or secret
+     * @throws IOException if the file cannot be read
+     */
+    public KeyFileAlgorithmResolver(Path keyOrSecretFile) throws IOException {
+        this(Files.readAllBytes(keyOrSecretFile));
+    }
+
+    /**
+     * @param keyOrSecretFileContent the content of the file containing the key or secret
+     */
+    public KeyFileAlgorithmResolver(byte[] keyOrSecretFileContent) {
+        this.keyOrSecretFileContent = keyOrSecretFileContent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Algorithm resolve(DecodedJWT decodedJWT) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        Alg alg;
+        try {
+            alg = Alg.fromHeader(decodedJWT.getAlgorithm());
+        } catch (IllegalArgumentException e) {
+            throw new AlgorithmMismatchException(e.getMessage());
+        }
+        if (alg == Alg.NONE) {
+            // An unsigned token must never pass for one signed with the key.
+            throw new AlgorithmMismatchException(KeyUtil.EXMSG_UNSUPPORTED_ALGORITHM + decodedJWT.getAlgorithm());
+        }
+        return forVerifying(alg);
+    }
+
+    /**
+     * Returns the algorithm for verifying with the key or secret.
+     *
+     * @param alg the algorithm
+     * @return Algorithm object for verifying
+     * @throws IOException if the key should be in PEM format and cannot be parsed
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws InvalidKeySpecException if the key is invalid
+     */
+    public Algorithm forVerifying(Alg alg) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        Algorithm algorithm = algorithms.get(alg);
+        if (algorithm != null) {
+            return algorithm;
+        }
+
+        // Two threads may build the same algorithm at the same time. It is harmless, and the first one wins.
+        byte[] keyOrSecret = KeyUtil.readKeyOrSecret(alg, keyOrSecretFileContent);
+        algorithm = Algorithms.forVerifying(alg, keyOrSecret);
+        Algorithm previous = algorithms.putIfAbsent(alg, algorithm);
+        return previous != null ? previous : algorithm;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Algorithm> algorithms() {
+        return List.copyOf(algorithms.values());
+    }
+
+    /**
+     * Builds the algorithms for every algorithm the key or secret fits, so that no token waits for parsing the key.
+     * <p>
+     *     Algorithms the key does not fit are skipped.
+     *     A PEM file is taken as a key, and is not preloaded as an HMAC secret.
+     *
+     * @return the built algorithms
+     */
+    public Set<Alg> preload() {
+        boolean pem = isPem(keyOrSecretFileContent);
+        for (Alg alg : Alg.values()) {
+            if (alg == Alg.NONE || isHmac(alg) && (pem || keyOrSecretFileContent.length == 0)) {
+                continue;
+            }
+            try {
+                forVerifying(alg);
+            } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException | IllegalArgumentException e) {
+                // The key does not fit the algorithm.
+            }
+        }
+        Set<Alg> built = EnumSet.noneOf(Alg.class);
+        built.addAll(algorithms.keySet());
+        return built;
+    }
+
+    /**
+     * Returns a loader for {@link ReloadingAlgorithmResolver}, which preloads the algorithms.
+     * <p>
+     *     The loader fails if the content fits no algorithm, or none of the algorithms the previously loaded content fits,
+     *     e.g. an RSA key replaced by a corrupt PEM file or by a secret. Then the previous key is kept.
+     */
+    public static ReloadingAlgorithmResolver.Loader preloadingLoader() {
+        AtomicReference<Set<Alg>> previous = new AtomicReference<>();
+        return content -> {
+            KeyFileAlgorithmResolver resolver = new KeyFileAlgorithmResolver(content);
+            Set<Alg> loaded = resolver.preload();
+            if (loaded.isEmpty()) {
+                throw new InvalidKeySpecException(EXMSG_NO_ALGORITHM_FITS);
+            }
+            Set<Alg> required = previous.get();
+            if (required != null && Collections.disjoint(loaded, required)) {
+                throw new InvalidKeySpecException(EXMSG_KEY_TYPE_CHANGED + required);
+            }
+            previous.set(loaded);
+            return resolver;
+        };
+    }
+
+    private static boolean isHmac(Alg alg) {
+        return alg == Alg.HS256 || alg == Alg.HS384 || alg == Alg.HS512;
+    }
+
+    private static boolean isPem(byte[] content) {
+        return new String(content, StandardCharsets.US_ASCII).contains(PEM_BEGIN);
+    }
+}
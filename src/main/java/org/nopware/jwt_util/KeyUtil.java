@@ -3,7 +3,10 @@ package org.nopware.jwt_util;
 import com.google.common.base.Charsets;
 import org.bouncycastle.util.io.pem.PemObject;
 import org.bouncycastle.util.io.pem.PemReader;
+import org.nopware.jwt_util.stats.Phase;
+import org.nopware.jwt_util.stats.Stats;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -36,14 +39,34 @@ public class KeyUtil {
      * @throws IOException if the file cannot be read, or if the key should be in PEM format and cannot be parsed
      */
     public static byte[] readKeyOrSecret(Alg alg, Path keyOrSecretFile) throws IOException, IllegalArgumentException {
+        if (alg == Alg.NONE) {
+            return new byte[0];
+        }
+        long start = Stats.start();
+        byte[] keyOrSecretFileContent;
+        try {
+            keyOrSecretFileContent = Files.readAllBytes(keyOrSecretFile);
+        } finally {
+            Stats.record(Phase.READ_FILE, start);
+        }
+        return readKeyOrSecret(alg, keyOrSecretFileContent);
+    }
+
+    /**
+     * Reads a key or secret from the content of a key or secret file.
+     *
+     * @param alg the algorithm
+     * @param keyOrSecretFileContent the content of the file containing the key or secret
+     * @return the key or secret
+     * @throws IOException if the key should be in PEM format and cannot be parsed
+     */
+    public static byte[] readKeyOrSecret(Alg alg, byte[] keyOrSecretFileContent) throws IOException, IllegalArgumentException {
         switch (alg) {
             case HS256, HS384, HS512 -> {
-                return Files.readAllBytes(keyOrSecretFile);
+                return keyOrSecretFileContent;
             }
             case RS256, RS384, RS512, PS256, PS384, PS512, ES256, ES384, ES512 -> {
-                try (InputStream inputStream = Files.newInputStream(keyOrSecretFile)) {
-                    return readPemObject(inputStream);
-                }
+                return readPemObject(new ByteArrayInputStream(keyOrSecretFileContent));
             }
             case NONE -> {
                 return new byte[0];
@@ -64,19 +87,25 @@ public class KeyUtil {
      * @throws IOException if the file cannot be read
      */
     public static byte[] readPemObject(InputStream inputStream) throws IOException {
+        long start = Stats.start();
         try (PemReader pemReader = new PemReader(new InputStreamReader(inputStream, Charsets.US_ASCII))) {
             PemObject pemObject = pemReader.readPemObject();
             if (pemObject == null) {
                 throw new IOException(EXMSG_NO_PEM_OBJECT_FOUND);
             }
             return pemObject.getContent();
+        } finally {
+            Stats.record(Phase.PARSE_PEM, start);
         }
     }
 
     public static byte[] readPemObject(String pemString) throws IOException {
+        long start = Stats.start();
         try (PemReader pemReader = new PemReader(new StringReader(pemString))) {
             PemObject pemObject = pemReader.readPemObject();
             return pemObject.getContent();
+        } finally {
+            Stats.record(Phase.PARSE_PEM, start);
         }
     }
 
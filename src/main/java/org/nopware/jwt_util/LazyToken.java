@@ -0,0 +1,182 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A view of a token which decodes each segment on first access.
+ * <p>
+ *     Only the positions of the dots are found on construction.
+ *     The header and the payload are base64url-decoded and parsed as JSON only when they are accessed,
+ *     so reading one segment does not cost anything for the others.
+ *     Unlike {@link Decoder#decode(String)}, a broken segment is not detected until it is accessed.
+ * <p>
+ *     The view is not thread-safe.
+ */
+public class LazyToken {
+    static final String EXMSG_NOT_THREE_PARTS = "The token was expected to have 3 parts, but got %d.";
+    static final String EXMSG_ILLEGAL_SEGMENT = "The %s is not a valid base64url string.";
+    static final String EXMSG_ILLEGAL_JSON = "The %s is not a valid JSON object.";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String token;
+    private final int firstDot;
+    private final int secondDot;
+
+    private byte[] headerBytes;
+    private byte[] payloadBytes;
+    private byte[] signatureBytes;
+    private JsonNode headerJson;
+    private JsonNode payloadJson;
+
+    /**
+     * Splits the token on the dots.
+     *
+     * @param token the token
+     * @throws JWTDecodeException if the token does not have 3 parts
+     */
+    public LazyToken(String token) throws JWTDecodeException {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new JWTDecodeException(String.format(EXMSG_NOT_THREE_PARTS, token.split("\\.", -1).length));
+        }
+        this.token = token;
+        this.firstDot = firstDot;
+        this.secondDot = secondDot;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the header in base64url.
+     */
+    public String getHeader() {
+        return token.substring(0, firstDot);
+    }
+
+    /**
+     * Returns the payload in base64url.
+     */
+    public String getPayload() {
+        return token.substring(firstDot + 1, secondDot);
+    }
+
+    /**
+     * Returns the signature in base64url.
+     */
+    public String getSignature() {
+        return token.substring(secondDot + 1);
+    }
+
+    /**
+     * Returns the decoded header. The returned array must not be modified.
+     *
+     * @throws JWTDecodeException if the header is not a valid base64url string
+     */
+    public byte[] getHeaderBytes() throws JWTDecodeException {
+        if (headerBytes == null) {
+            headerBytes = decode(0, firstDot, "header");
+        }
+        return headerBytes;
+    }
+
+    /**
+     * Returns the decoded payload. The returned array must not be modified.
+     *
+     * @throws JWTDecodeException if the payload is not a valid base64url string
+     */
+    public byte[] getPayloadBytes() throws JWTDecodeException {
+        if (payloadBytes == null) {
+            payloadBytes = decode(firstDot + 1, secondDot, "payload");
+        }
+        return payloadBytes;
+    }
+
+    /**
+     * Returns the decoded signature. The returned array must not be modified.
+     *
+     * @throws JWTDecodeException if the signature is not a valid base64url string
+     */
+    public byte[] getSignatureBytes() throws JWTDecodeException {
+        if (signatureBytes == null) {
+            signatureBytes = decode(secondDot + 1, token.length(), "signature");
+        }
+        return signatureBytes;
+    }
+
+    /**
+     * Returns the parsed header.
+     *
+     * @throws JWTDecodeException if the header is not a valid JSON object
+     */
+    public JsonNode getHeaderJson() throws JWTDecodeException {
+        if (headerJson == null) {
+            headerJson = parse(getHeaderBytes(), "header");
+        }
+        return headerJson;
+    }
+
+    /**
+     * Returns the parsed payload.
+     *
+     * @throws JWTDecodeException if the payload is not a valid JSON object
+     */
+    public JsonNode getPayloadJson() throws JWTDecodeException {
+        if (payloadJson == null) {
+            payloadJson = parse(getPayloadBytes(), "payload");
+        }
+        return payloadJson;
+    }
+
+    /**
+     * Returns the "alg" header, or null if absent.
+     *
+     * @throws JWTDecodeException if the header is not a valid JSON object
+     */
+    public String getAlgorithm() throws JWTDecodeException {
+        return textOrNull(getHeaderJson().get("alg"));
+    }
+
+    /**
+     * Returns the "kid" header, or null if absent.
+     *
+     * @throws JWTDecodeException if the header is not a valid JSON object
+     */
+    public String getKeyId() throws JWTDecodeException {
+        return textOrNull(getHeaderJson().get("kid"));
+    }
+
+    private byte[] decode(int start, int end, String segment) {
+        try {
+            byte[] buffer = new byte[IOUtil.base64UrlDecodedLength(end - start)];
+            int length = IOUtil.base64UrlDecode(token, start, end, buffer, 0);
+            return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        } catch (IllegalArgumentException e) {
+            throw new JWTDecodeException(String.format(EXMSG_ILLEGAL_SEGMENT, segment), e);
+        }
+    }
+
+    private static JsonNode parse(byte[] json, String segment) {
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if (node == null || !node.isObject()) {
+                throw new JWTDecodeException(String.format(EXMSG_ILLEGAL_JSON, segment));
+            }
+            return node;
+        } catch (IOException e) {
+            throw new JWTDecodeException(String.format(EXMSG_ILLEGAL_JSON, segment), e);
+        }
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node == null || !node.isTextual() ? null : node.asText();
+    }
+}
@@ -0,0 +1,152 @@
+package org.nopware.jwt_util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads newline-delimited tokens from a file by memory-mapping it.
+ * <p>
+ *     The file is mapped region by region, so it can be larger than the heap and larger than 2 GiB.
+ *     Each token is returned as a read-only slice of the mapped region, without copying.
+ *     Leading and trailing whitespace (including CR of CRLF) is stripped, and blank lines are skipped.
+ * <p>
+ *     Returned slices stay valid after the reader moves to the next region or is closed,
+ *     because a mapping is released only when all buffers on it are garbage collected.
+ *     The reader itself is not thread-safe, but the returned slices can be handed to other threads.
+ */
+public class MappedTokenReader implements Iterator<ByteBuffer>, Closeable {
+    static final long DEFAULT_REGION_SIZE = 256L * 1024 * 1024;
+
+    static final String EXMSG_LINE_TOO_LONG = "Line too long: ";
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    // The absolute position of the next line in the file.
+    private long position;
+
+    private ByteBuffer next;
+
+    /**
+     * @param path the file of newline-delimited tokens
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedTokenReader(Path path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    // The region size is configurable for testing.
+    MappedTokenReader(Path path, long regionSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if the file cannot be mapped, or a line is longer than the region
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if the file cannot be mapped, or a line is longer than the region
+     */
+    @Override
+    public ByteBuffer next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ByteBuffer token = next;
+        next = null;
+        return token;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Mapped regions stay valid after closing the channel.
+        channel.close();
+    }
+
+    private ByteBuffer readNext() throws IOException {
+        while (position < size) {
+            if (region == null || position >= regionStart + region.limit()) {
+                map(position);
+            }
+
+            int from = (int) (position - regionStart);
+            int limit = region.limit();
+            int newline = indexOf(region, from, limit, (byte) '\n');
+            if (newline < 0) {
+                if (regionStart + limit < size) {
+                    // The line continues beyond the region.
+                    if (from == 0) {
+                        throw new IOException(EXMSG_LINE_TOO_LONG + "at offset " + position);
+                    }
+                    map(position);
+                    continue;
+                }
+                // The last line without a trailing newline.
+                newline = limit;
+            }
+
+            position = regionStart + newline + 1;
+
+            int start = from;
+            int end = newline;
+            while (start < end && isWhitespace(region.get(start))) {
+                start++;
+            }
+            while (end > start && isWhitespace(region.get(end - 1))) {
+                end--;
+            }
+            if (start < end) {
+                return region.slice(start, end - start).asReadOnlyBuffer();
+            }
+        }
+        return null;
+    }
+
+    private void map(long start) throws IOException {
+        long length = Math.min(regionSize, size - start);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        regionStart = start;
+    }
+
+    private static int indexOf(ByteBuffer buffer, int from, int limit, byte b) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
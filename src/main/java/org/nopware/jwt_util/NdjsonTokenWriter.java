@@ -0,0 +1,138 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes decoded tokens as NDJSON, one {@code {"header":...,"payload":...,"signature":"..."}} object per line.
+ * <p>
+ *     The output is written by a streaming {@link JsonGenerator} without building trees.
+ *     The header and the payload are copied token by token from a parser to a buffer first,
+ *     which validates them and removes line breaks, and the buffer is embedded as a raw value.
+ *     So a segment of a token can neither inject into nor break the output.
+ *     A token which cannot be decoded, or whose header or payload is not a JSON object,
+ *     is written as {@code {"error":"..."}}.
+ * <p>
+ *     The writer is not thread-safe.
+ */
+public class NdjsonTokenWriter implements Closeable, Flushable {
+    static final String EXMSG_NOT_A_JSON_OBJECT = "The segment is not a JSON object";
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final SerializedString HEADER = new SerializedString("header");
+    private static final SerializedString PAYLOAD = new SerializedString("payload");
+    private static final SerializedString SIGNATURE = new SerializedString("signature");
+    private static final SerializedString ERROR = new SerializedString("error");
+
+    private final JsonGenerator generator;
+
+    // The header and the payload of the token being written, validated and compacted.
+    private final ByteArrayOutputStream headerJson = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream payloadJson = new ByteArrayOutputStream();
+
+    private boolean written;
+
+    /**
+     * @param out the output stream. It is not closed by {@link #close()}.
+     * @throws IOException if the generator cannot be created
+     */
+    public NdjsonTokenWriter(OutputStream out) throws IOException {
+        this.generator = jsonFactory.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Separate root values by a newline rather than a space.
+        this.generator.setRootValueSeparator(new SerializedString("\n"));
+    }
+
+    /**
+     * Writes one line for the token.
+     *
+     * @param token the token
+     * @return true if the token is decoded, or false if an error line is written
+     * @throws IOException if writing fails
+     */
+    public boolean write(String token) throws IOException {
+        written = true;
+        byte[] header;
+        byte[] payload;
+        String signature;
+        try {
+            LazyToken lazyToken = Decoder.decodeLazily(token);
+            header = lazyToken.getHeaderBytes();
+            payload = lazyToken.getPayloadBytes();
+            signature = lazyToken.getSignature();
+        } catch (JWTDecodeException e) {
+            writeError(e.getMessage());
+            return false;
+        }
+        try {
+            copyJson(header, headerJson);
+            copyJson(payload, payloadJson);
+        } catch (JsonProcessingException e) {
+            writeError(e.getOriginalMessage());
+            return false;
+        }
+
+        generator.writeStartObject();
+        generator.writeFieldName(HEADER);
+        generator.writeRawValue(headerJson.toString(StandardCharsets.UTF_8));
+        generator.writeFieldName(PAYLOAD);
+        generator.writeRawValue(payloadJson.toString(StandardCharsets.UTF_8));
+        generator.writeFieldName(SIGNATURE);
+        generator.writeString(signature);
+        generator.writeEndObject();
+        return true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    /**
+     * Flushes the output. The underlying stream is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (written) {
+            // Terminate the last line.
+            generator.writeRaw('\n');
+        }
+        generator.close();
+    }
+
+    private void writeError(String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ERROR);
+        generator.writeString(message);
+        generator.writeEndObject();
+    }
+
+    // Copies a JSON object compactly, or throws if the JSON is not one valid object.
+    private static void copyJson(byte[] json, ByteArrayOutputStream out) throws IOException {
+        out.reset();
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator copy = jsonFactory.createGenerator(out)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, EXMSG_NOT_A_JSON_OBJECT);
+            }
+            copy.copyCurrentStructure(parser);
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, EXMSG_NOT_A_JSON_OBJECT);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resolves the algorithm by a resolver loaded from a file, and reloads it when the file changes.
+ * <p>
+ *     The file is watched by {@link WatchService} on a background thread.
+ *     A changed file is read and parsed on the background thread, and the new resolver replaces the old one atomically,
+ *     so {@link #resolve(DecodedJWT)} never waits for reading or parsing the file.
+ *     If the changed file cannot be loaded (e.g. it is being written), the old resolver is kept.
+ * <p>
+ *     Both modifying the file in place and replacing it by renaming another file are detected,
+ *     as well as swapping a symbolic link the file resolves through, e.g. {@code ..data} of a Kubernetes secret volume.
+ *     Any change in the directory of the file triggers reading the file,
+ *     and the file is reloaded only if its content has changed.
+ */
+@Slf4j
+public class ReloadingAlgorithmResolver implements AlgorithmResolver, Closeable {
+    // Events within this period are coalesced into one reload, since writing a file fires several events.
+    static final long QUIET_PERIOD_MILLIS = 100;
+
+    /**
+     * Loads a resolver from the content of the file.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        AlgorithmResolver load(byte[] content) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException;
+    }
+
+    @Value
+    private static class Loaded {
+        AlgorithmResolver resolver;
+        HashCode fingerprint;
+    }
+
+    private final Path file;
+    private final Loader loader;
+    private final WatchService watchService;
+    private final Thread watcher;
+
+    private final AtomicReference<Loaded> current = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Loads the file, and starts watching it.
+     *
+     * @param file the key, secret or JWKS file
+     * @param loader the loader of a resolver from the content of the file
+     * @throws IOException if the file cannot be read, or cannot be watched
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws InvalidKeySpecException if the key is invalid
+     */
+    public ReloadingAlgorithmResolver(Path file, Loader loader) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        this.file = file.toAbsolutePath();
+        this.loader = loader;
+
+        byte[] content = Files.readAllBytes(this.file);
+        current.set(new Loaded(loader.load(content), fingerprint(content)));
+
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.watcher = new Thread(this::watch, "key-reloader");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Algorithm resolve(DecodedJWT decodedJWT) throws JWTVerificationException, IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        return current.get().getResolver().resolve(decodedJWT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Algorithm> algorithms() {
+        return current.get().getResolver().algorithms();
+    }
+
+    /**
+     * Adds a listener run on the background thread each time a changed file has been loaded and swapped in,
+     * e.g. to drop the verdicts cached with the previous key.
+     */
+    public void addReloadListener(Runnable listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * Returns the number of reloads so far.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stops watching the file. The last loaded resolver is still usable.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = pollEvents(key);
+                // Wait until the writer finishes.
+                while ((key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= pollEvents(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Stopped watching {}", file);
+        }
+    }
+
+    // The file may resolve through a symbolic link of another name in the directory, so any event counts.
+    private boolean pollEvents(WatchKey key) {
+        boolean changed = !key.pollEvents().isEmpty();
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            byte[] content = Files.readAllBytes(file);
+            HashCode fingerprint = fingerprint(content);
+            if (fingerprint.equals(current.get().getFingerprint())) {
+                return;
+            }
+            current.set(new Loaded(loader.load(content), fingerprint));
+            for (Runnable listener : reloadListeners) {
+                listener.run();
+            }
+            generation.incrementAndGet();
+            log.info("Reloaded {}", file);
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException | RuntimeException e) {
+            log.warn("Failed to reload {}. The previous key is kept.", file, e);
+        }
+    }
+
+    private static HashCode fingerprint(byte[] content) {
+        return Hashing.sha256().hashBytes(content);
+    }
+}
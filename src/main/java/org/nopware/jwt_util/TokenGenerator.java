@@ -0,0 +1,178 @@
+package org.nopware.jwt_util;
+
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.Builder;
+import lombok.Value;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Mints tokens from a {@link TokenTemplate} for load tests.
+ * <p>
+ *     Tokens are generated until the count is reached or the duration has passed, whichever comes first,
+ *     at the target rate or at maximum speed.
+ *     They are signed in parallel by {@link BatchRunner}, and passed to the sink in generation order.
+ *     The rate is enforced where the tokens are scheduled, so a slow sink lowers the achieved rate
+ *     rather than letting tokens pile up.
+ * <p>
+ *     Each token gets {@code iat} of the current time, optionally spread randomly into the past,
+ *     and {@code exp} of {@code iat} plus the TTL. {@code jti} and {@code sub} follow their {@link Mode}.
+ */
+@Value
+@Builder
+public class TokenGenerator {
+    public static final String SUBJECT_PREFIX = "user-";
+
+    /**
+     * How a claim varies from token to token.
+     */
+    public enum Mode {
+        /**
+         * The sequence number of the token, e.g. "0", "1", ... for {@code jti},
+         * and "user-0", "user-1", ... cycling through the subjects for {@code sub}.
+         */
+        SEQUENTIAL,
+        /**
+         * A random UUID for {@code jti}, and a random one of the subjects for {@code sub}.
+         */
+        RANDOM,
+        /**
+         * The claim is omitted.
+         */
+        NONE
+    }
+
+    TokenTemplate template;
+
+    /**
+     * The number of tokens, or 0 for no limit.
+     */
+    long count;
+
+    /**
+     * How long to generate tokens, or null for no limit.
+     */
+    @Nullable
+    Duration duration;
+
+    /**
+     * The target rate in tokens per second, or 0 for maximum speed.
+     */
+    double rate;
+
+    /**
+     * The number of threads for signing.
+     */
+    @Builder.Default
+    int threads = 1;
+
+    @Builder.Default
+    Mode jwtId = Mode.RANDOM;
+
+    @Builder.Default
+    Mode subject = Mode.SEQUENTIAL;
+
+    /**
+     * The number of distinct subjects.
+     */
+    @Builder.Default
+    long subjects = 1000;
+
+    /**
+     * The lifetime of a token in seconds, i.e. {@code exp - iat}.
+     */
+    @Builder.Default
+    long ttl = 3600;
+
+    /**
+     * {@code iat} is spread randomly over this many seconds before now. 0 for now.
+     */
+    long issuedAtSpread;
+
+    /**
+     * The result of a run.
+     */
+    @Value
+    public static class Result {
+        long count;
+        Duration elapsed;
+
+        public double tokensPerSecond() {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : count * 1e9 / nanos;
+        }
+    }
+
+    /**
+     * Generates tokens, and passes them to the sink on the calling thread.
+     *
+     * @param sink the sink for each token
+     * @return the number of tokens and the elapsed time
+     * @throws RuntimeException if a token cannot be signed. The remaining tokens are not generated.
+     */
+    public Result run(Consumer<String> sink) {
+        long start = System.nanoTime();
+        long[] generated = new long[1];
+        BatchRunner.run(sequenceNumbers(start), this::generate, token -> {
+            sink.accept(token);
+            generated[0]++;
+        }, threads);
+        return new Result(generated[0], Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private Iterator<Long> sequenceNumbers(long start) {
+        long deadline = duration == null ? 0 : start + duration.toNanos();
+        RateLimiter rateLimiter = rate > 0 ? RateLimiter.create(rate) : null;
+        return new Iterator<>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return (count == 0 || next < count) && (duration == null || System.nanoTime() - deadline < 0);
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+                return next++;
+            }
+        };
+    }
+
+    private String generate(long sequenceNumber) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis() / 1000;
+        long issuedAt = issuedAtSpread > 0 ? now - random.nextLong(issuedAtSpread + 1) : now;
+        return template.encode(issuedAt, issuedAt + ttl, jwtId(sequenceNumber, random), subject(sequenceNumber, random));
+    }
+
+    @Nullable
+    private String jwtId(long sequenceNumber, ThreadLocalRandom random) {
+        return switch (jwtId) {
+            case SEQUENTIAL -> Long.toString(sequenceNumber);
+            // UUID.randomUUID() draws from a shared SecureRandom, which contends across threads.
+            case RANDOM -> new UUID(random.nextLong() & ~0xf000L | 0x4000L, random.nextLong() & ~(0x3L << 62) | (0x2L << 62)).toString();
+            case NONE -> null;
+        };
+    }
+
+    @Nullable
+    private String subject(long sequenceNumber, ThreadLocalRandom random) {
+        return switch (subject) {
+            case SEQUENTIAL -> SUBJECT_PREFIX + sequenceNumber % subjects;
+            case RANDOM -> SUBJECT_PREFIX + random.nextLong(subjects);
+            case NONE -> null;
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A cache of tokens which have been verified as valid.
+ * <p>
+ *     In daemon and batch modes, the same tokens recur many times, e.g. one token per user session.
+ *     A token found in the cache is valid without decoding it or verifying its signature again.
+ *     Tokens are keyed by their SHA-256 digest, so a forged token cannot collide with a cached one.
+ * <p>
+ *     An entry expires at the {@code exp} of the token, or after the maximum TTL, whichever comes first.
+ *     A cache used with a reloaded key must be cleared by {@link #invalidateAll()} when the key is rotated.
+ *     Clearing starts a new generation. A verdict reached with the previous key may be put after clearing,
+ *     so a verdict is put with the generation taken before resolving the key,
+ *     and a verdict of an older generation is neither put nor returned.
+ *     The cache is bounded and evicts the least recently used entries.
+ * <p>
+ *     Only valid verdicts are cached. Invalid tokens are cheap to send in bulk,
+ *     and caching them would let them evict the tokens of real sessions.
+ * <p>
+ *     The cache is thread-safe.
+ */
+public class VerificationCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+    public static final Duration DEFAULT_MAX_TTL = Duration.ofMinutes(5);
+
+    @Value
+    private static class Entry {
+        // The time in milliseconds since the epoch until which the token is valid.
+        long validUntil;
+        long generation;
+    }
+
+    // digest -> entry
+    private final Cache<HashCode, Entry> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final long maxTtlMillis;
+
+    private final LongSupplier clock;
+
+    /**
+     * @param maximumSize the maximum number of tokens to keep
+     * @param maxTtl the maximum time to keep a token
+     */
+    public VerificationCache(long maximumSize, Duration maxTtl) {
+        this(maximumSize, maxTtl, System::currentTimeMillis);
+    }
+
+    // The clock is configurable for testing.
+    VerificationCache(long maximumSize, Duration maxTtl, LongSupplier clock) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Returns true if the token has been verified as valid and has not expired.
+     *
+     * @param token the token
+     */
+    public boolean isValid(String token) {
+        HashCode digest = digest(token);
+        Entry entry = cache.getIfPresent(digest);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.getGeneration() != generation.get() || clock.getAsLong() >= entry.getValidUntil()) {
+            cache.invalidate(digest);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current generation, which {@link #invalidateAll()} advances.
+     * Take it before resolving the key of a token, and pass it to {@link #putValid(String, DecodedJWT, long)}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Records that the token has been verified as valid with a key which is never rotated.
+     *
+     * @param token the token
+     * @param verified the token decoded and verified
+     */
+    public void putValid(String token, DecodedJWT verified) {
+        putValid(token, verified, generation());
+    }
+
+    /**
+     * Records that the token has been verified as valid, unless the cache has been cleared since the generation.
+     *
+     * @param token the token
+     * @param verified the token decoded and verified
+     * @param generation the generation taken before resolving the key of the token
+     */
+    public void putValid(String token, DecodedJWT verified, long generation) {
+        if (generation != this.generation.get()) {
+            // Verified with a key which has been rotated since.
+            return;
+        }
+        long validUntil = clock.getAsLong() + maxTtlMillis;
+        Instant expiresAt = verified.getExpiresAtAsInstant();
+        if (expiresAt != null) {
+            validUntil = Math.min(validUntil, expiresAt.toEpochMilli());
+        }
+        cache.put(digest(token), new Entry(validUntil, generation));
+    }
+
+    /**
+     * Returns the number of cached tokens. (approximately)
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Drops all cached verdicts, e.g. when the key is rotated.
+     */
+    public void invalidateAll() {
+        // Before clearing, so that a verdict put while clearing is not returned.
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private static HashCode digest(String token) {
+        return Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+    }
+}
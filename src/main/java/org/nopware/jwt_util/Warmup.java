@@ -0,0 +1,155 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.nopware.jwt_util.stats.Stats;
+
+import java.io.IOException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.InvalidKeySpecException;
+import java.util.*;
+
+/**
+ * Warms up the JIT compiler with synthetic tokens, so that the first real tokens are not slow.
+ * <p>
+ *     The first thousands of tokens in a JVM run are processed by the interpreter,
+ *     and their latencies are several times longer than later ones.
+ *     Warming up runs {@link Algorithms}, {@link Encoder#encode} and {@link Decoder#verify}
+ *     with ephemeral keys of the same algorithms as the loaded keys.
+ *     The loaded keys for verifying are exercised too. The synthetic tokens just fail to verify with them.
+ * <p>
+ *     {@link Stats} are reset after warming up, so they show only the real tokens.
+ */
+@Slf4j
+public class Warmup {
+    public static final int DEFAULT_ITERATIONS = 10_000;
+
+    // Tokens are reused in rotation. Different tokens keep the JIT from specializing on one input.
+    private static final int TOKENS = 16;
+
+    /**
+     * Warms up verifying with the algorithms.
+     * <p>
+     *     The code paths depend only on the algorithm, not on the key, so each distinct algorithm is warmed up once,
+     *     with the ephemeral key and the first loaded key of it.
+     *     The other loaded keys (e.g. of a JWKS) verify only a few tokens each, to build their verifiers.
+     *
+     * @param algorithms the algorithms for verifying, e.g. by {@link AlgorithmResolver#algorithms()}
+     * @param iterations the number of tokens to verify for each distinct algorithm
+     * @throws NoSuchAlgorithmException if an ephemeral key cannot be generated
+     * @throws InvalidAlgorithmParameterException if an ephemeral key cannot be generated
+     * @throws InvalidKeySpecException if an ephemeral key cannot be parsed
+     * @throws IOException if an ephemeral key cannot be parsed
+     */
+    public static void verifying(Collection<Algorithm> algorithms, int iterations) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeySpecException, IOException {
+        long start = System.nanoTime();
+        Map<Alg, List<Algorithm>> loadedByAlg = new EnumMap<>(Alg.class);
+        for (Algorithm loaded : algorithms) {
+            Alg alg = Alg.fromHeader(loaded.getName());
+            if (alg != Alg.NONE) {
+                loadedByAlg.computeIfAbsent(alg, a -> new ArrayList<>()).add(loaded);
+            }
+        }
+
+        for (Map.Entry<Alg, List<Algorithm>> entry : loadedByAlg.entrySet()) {
+            Alg alg = entry.getKey();
+            List<Algorithm> loaded = entry.getValue();
+
+            KeyMaterial key = generate(alg);
+            Algorithm forSigning = Algorithms.forSigning(alg, key.getForSigning());
+            Algorithm forVerifying = Algorithms.forVerifying(alg, key.getForVerifying());
+
+            List<DecodedJWT> tokens = new ArrayList<>(TOKENS);
+            for (int i = 0; i < TOKENS; i++) {
+                tokens.add(Decoder.decode(Encoder.encode(Optional.empty(), payload(i), forSigning)));
+            }
+
+            for (int i = 0; i < iterations; i++) {
+                DecodedJWT decodedJWT = Decoder.decode(tokens.get(i % TOKENS).getToken());
+                // Both of a valid token and an invalid one.
+                Decoder.verify(decodedJWT, forVerifying);
+                verifyInvalid(decodedJWT, loaded.get(0));
+            }
+            for (Algorithm other : loaded.subList(1, loaded.size())) {
+                for (DecodedJWT decodedJWT : tokens) {
+                    verifyInvalid(decodedJWT, other);
+                }
+            }
+        }
+        finish(start);
+    }
+
+    private static void verifyInvalid(DecodedJWT decodedJWT, Algorithm loaded) {
+        try {
+            Decoder.verify(decodedJWT, loaded);
+        } catch (JWTVerificationException expected) {
+            // The synthetic token is not signed by the loaded key.
+        }
+    }
+
+    /**
+     * Warms up signing with the algorithm.
+     *
+     * @param algorithm the algorithm for signing
+     * @param headerJson the header
+     * @param iterations the number of tokens to sign
+     */
+    public static void signing(Algorithm algorithm, Optional<String> headerJson, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Decoder.decode(Encoder.encode(headerJson, payload(i), algorithm));
+        }
+        finish(start);
+    }
+
+    private static String payload(int i) {
+        return String.format("{\"sub\":\"warmup-%d\",\"iat\":%d}", i, 1700000000 + i);
+    }
+
+    private static void finish(long start) {
+        log.debug("Warmed up in {} ms", (System.nanoTime() - start) / 1_000_000);
+        Stats.reset();
+    }
+
+    // The same format as KeyUtil#readKeyOrSecret returns. (PKCS#8, X.509, or the secret)
+    @Value
+    private static class KeyMaterial {
+        byte[] forSigning;
+        byte[] forVerifying;
+    }
+
+    private static KeyMaterial generate(Alg alg) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+        return switch (alg) {
+            case HS256, HS384, HS512 -> {
+                byte[] secret = KeyUtil.random(64);
+                yield new KeyMaterial(secret, secret);
+            }
+            case RS256, RS384, RS512, PS256, PS384, PS512 -> {
+                KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+                keyPairGenerator.initialize(2048);
+                yield keyMaterialOf(keyPairGenerator.generateKeyPair());
+            }
+            case ES256, ES384, ES512 -> {
+                KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+                keyPairGenerator.initialize(new ECGenParameterSpec(switch (alg) {
+                    case ES256 -> "secp256r1";
+                    case ES384 -> "secp384r1";
+                    default -> "secp521r1";
+                }));
+                yield keyMaterialOf(keyPairGenerator.generateKeyPair());
+            }
+            case NONE -> throw new NoSuchAlgorithmException(KeyUtil.EXMSG_UNSUPPORTED_ALGORITHM + alg);
+        };
+    }
+
+    private static KeyMaterial keyMaterialOf(KeyPair keyPair) {
+        return new KeyMaterial(keyPair.getPrivate().getEncoded(), keyPair.getPublic().getEncoded());
+    }
+}
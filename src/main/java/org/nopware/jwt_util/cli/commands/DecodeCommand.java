@@ -4,25 +4,42 @@ import com.auth0.jwt.interfaces.DecodedJWT;
 import lombok.extern.slf4j.Slf4j;
 import org.nopware.jwt_util.Decoder;
 import org.nopware.jwt_util.IOUtil;
+import org.nopware.jwt_util.LazyToken;
+import org.nopware.jwt_util.MappedTokenReader;
+import org.nopware.jwt_util.NdjsonTokenWriter;
 import org.nopware.jwt_util.cli.common.HelpOption;
+import org.nopware.jwt_util.cli.common.StatsOption;
+import picocli.CommandLine;
 import picocli.CommandLine.*;
 
-import java.io.IOException;
+import java.io.*;
 import java.nio.file.Path;
 import java.util.concurrent.Callable;
 
 @Command(name = "decode", description = "Decodes a JWT token.")
 @Slf4j
 public class DecodeCommand implements Callable<Integer> {
+    public static final String EXMSG_BATCH_REQUIRES_NDJSON = "--batch requires --ndjson.";
+    public static final String EXMSG_FAILED_TO_READ_JWT = "Failed to read JWT: ";
+
     @Mixin
     private HelpOption helpOption;
 
+    @Mixin
+    private StatsOption statsOption;
+
     @Parameters(index = "0", arity = "1", description = "The JWT file to decode.")
     private Path jwtPath;
 
     @ArgGroup(exclusive = true, multiplicity = "0..1")
     private OnlyOption onlyOption;
 
+    @Option(names = {"--ndjson"}, description = "Print each token as one JSON object per line.")
+    private boolean ndjson;
+
+    @Option(names = {"--batch"}, description = "Decode newline-delimited tokens. Requires --ndjson.")
+    private boolean batch;
+
     static class OnlyOption {
         @Option(names = {"--header-only"}, description = "Only decode the header of the token.")
         private boolean headerOnly;
@@ -36,22 +53,35 @@ public class DecodeCommand implements Callable<Integer> {
 
     @Override
     public Integer call() {
+        if (batch && !ndjson) {
+            System.err.println(EXMSG_BATCH_REQUIRES_NDJSON);
+            return CommandLine.ExitCode.USAGE;
+        }
+        if (ndjson) {
+            return decodeNdjson();
+        }
+
         try {
             String jwt = IOUtil.readStringFromFileOrStdin(jwtPath);
-            DecodedJWT decode = Decoder.decode(jwt);
-
             if (onlyOption != null) {
+                // Only the requested segment is decoded.
+                LazyToken token = Decoder.decodeLazily(jwt);
                 if (onlyOption.headerOnly) {
-                    System.out.write(IOUtil.base64Decode(decode.getHeader()));
+                    System.out.write(token.getHeaderBytes());
                 } else if (onlyOption.payloadOnly) {
-                    System.out.write(IOUtil.base64Decode(decode.getPayload()));
+                    System.out.write(token.getPayloadBytes());
                 } else if (onlyOption.signatureOnly) {
-                    System.out.write(decode.getSignature().getBytes());
+                    System.out.write(token.getSignature().getBytes());
                 }
             } else {
-                System.out.write(IOUtil.base64Decode(decode.getHeader()));
+                DecodedJWT decode = Decoder.decode(jwt);
+
+                // One buffer for decoding both of the header and the payload.
+                byte[] buffer = new byte[maxDecodedLength(decode.getHeader(), decode.getPayload())];
+
+                writeDecoded(decode.getHeader(), buffer);
                 System.out.println();
-                System.out.write(IOUtil.base64Decode(decode.getPayload()));
+                writeDecoded(decode.getPayload(), buffer);
                 System.out.println();
                 System.out.write(decode.getSignature().getBytes());
             }
@@ -62,4 +92,51 @@ public class DecodeCommand implements Callable<Integer> {
 
         return 0;
     }
+
+    private int decodeNdjson() {
+        long failed = 0;
+        try (NdjsonTokenWriter writer = new NdjsonTokenWriter(new BufferedOutputStream(System.out))) {
+            if (!batch) {
+                failed += writer.write(IOUtil.readStringFromFileOrStdin(jwtPath).strip()) ? 0 : 1;
+            } else if (IOUtil.isMappable(jwtPath)) {
+                // Map the file rather than reading it into the heap. It can be larger than the heap.
+                try (MappedTokenReader tokens = new MappedTokenReader(jwtPath)) {
+                    while (tokens.hasNext()) {
+                        failed += writer.write(IOUtil.asciiString(tokens.next())) ? 0 : 1;
+                    }
+                }
+            } else {
+                try (BufferedReader reader = IOUtil.newBufferedReaderFromFileOrStdin(jwtPath)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.strip();
+                        if (!line.isEmpty()) {
+                            failed += writer.write(line) ? 0 : 1;
+                        }
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println(EXMSG_FAILED_TO_READ_JWT + e.getMessage());
+            log.debug("Failed to read JWT file.", e);
+            return CommandLine.ExitCode.SOFTWARE;
+        } finally {
+            System.out.flush();
+        }
+
+        return failed == 0 ? CommandLine.ExitCode.OK : CommandLine.ExitCode.SOFTWARE;
+    }
+
+    private static int maxDecodedLength(String... base64Urls) {
+        int maxLength = 0;
+        for (String base64Url : base64Urls) {
+            maxLength = Math.max(maxLength, base64Url.length());
+        }
+        return maxLength / 4 * 3 + 2;
+    }
+
+    private static void writeDecoded(String base64Url, byte[] buffer) {
+        int length = IOUtil.base64UrlDecode(base64Url, 0, base64Url.length(), buffer, 0);
+        System.out.write(buffer, 0, length);
+    }
 }
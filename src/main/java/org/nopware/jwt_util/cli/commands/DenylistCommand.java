@@ -0,0 +1,43 @@
+package org.nopware.jwt_util.cli.commands;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nopware.jwt_util.JtiDenylist;
+import org.nopware.jwt_util.cli.common.HelpOption;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+@Command(name = "denylist", description = "Compiles a jti denylist of one jti per line into a file which verify --deny-jti maps without reading.")
+@Slf4j
+public class DenylistCommand implements Callable<Integer> {
+    public static final String EXMSG_FAILED_TO_COMPILE = "Failed to compile denylist: ";
+    public static final String MSG_COMPILED = "Compiled %d jti values.";
+
+    @Mixin
+    private HelpOption helpOption;
+
+    @Parameters(index = "0", arity = "1", description = "The text file of one jti per line.")
+    private Path jtisPath;
+
+    @Parameters(index = "1", arity = "1", description = "The compiled denylist file to write.")
+    private Path outputPath;
+
+    @Override
+    public Integer call() {
+        try {
+            JtiDenylist denylist = JtiDenylist.open(jtisPath);
+            denylist.write(outputPath);
+            System.err.println(String.format(MSG_COMPILED, denylist.size()));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(EXMSG_FAILED_TO_COMPILE + e.getMessage());
+            log.debug("Failed to compile denylist.", e);
+            return CommandLine.ExitCode.SOFTWARE;
+        }
+        return CommandLine.ExitCode.OK;
+    }
+}
@@ -4,15 +4,19 @@ import com.auth0.jwt.algorithms.Algorithm;
 import lombok.extern.slf4j.Slf4j;
 import org.nopware.jwt_util.*;
 import org.nopware.jwt_util.cli.common.HelpOption;
+import org.nopware.jwt_util.cli.common.StatsOption;
+import org.nopware.jwt_util.cli.common.WarmupOption;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 
@@ -22,6 +26,12 @@ public class EncodeCommand implements Callable<Integer> {
     @Mixin
     private HelpOption helpOption;
 
+    @Mixin
+    private StatsOption statsOption;
+
+    @Mixin
+    private WarmupOption warmupOption;
+
     @Parameters(index = "0", arity = "1", description = "The payload file to encode.")
     private Path payloadPath;
 
@@ -34,6 +44,12 @@ public class EncodeCommand implements Callable<Integer> {
     @Option(names = {"--key"}, required = false, description = "The key or secret for signing.")
     private Path keyPath;
 
+    @Option(names = {"--batch"}, description = "Encode NDJSON payloads (one JSON object per line), and print one token per line in input order.")
+    private boolean batch;
+
+    @Option(names = {"--threads"}, description = "The number of threads for signing in batch mode. 0 for the number of processors. (default: 0)")
+    private int threads;
+
     @Override
     public Integer call() {
         try {
@@ -41,10 +57,14 @@ public class EncodeCommand implements Callable<Integer> {
                 alg = Alg.NONE;
             }
 
-            String payload = IOUtil.readStringFromFileOrStdin(payloadPath);
-
             byte[] keyOrSecret = KeyUtil.readKeyOrSecret(alg, keyPath);
             Algorithm algorithm = Algorithms.forSigning(alg, keyOrSecret);
+
+            if (batch) {
+                return encodeBatch(algorithm);
+            }
+
+            String payload = IOUtil.readStringFromFileOrStdin(payloadPath);
             String encode = Encoder.encode(Optional.ofNullable(header), payload, algorithm);
             System.out.write(encode.getBytes());
         } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
@@ -54,4 +74,28 @@ public class EncodeCommand implements Callable<Integer> {
 
         return 0;
     }
+
+    private int encodeBatch(Algorithm algorithm) throws IOException {
+        Optional<String> headerJson = Optional.ofNullable(header);
+        warmupOption.warmUpSigning(algorithm, headerJson);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        try (BufferedReader reader = IOUtil.newBufferedReaderFromFileOrStdin(payloadPath)) {
+            Iterator<String> payloads = reader.lines()
+                    .filter(line -> !line.isBlank())
+                    .iterator();
+
+            BatchRunner.run(payloads, payload -> Encoder.encode(headerJson, payload, algorithm), out::println, BatchRunner.threadsOrProcessors(threads));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            // e.g. A payload is not a JSON object.
+            System.err.println(e.getMessage());
+            log.debug("Failed to encode JWT.", e);
+            return 1;
+        } finally {
+            out.flush();
+        }
+
+        return 0;
+    }
 }
@@ -0,0 +1,160 @@
+package org.nopware.jwt_util.cli.commands;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.nopware.jwt_util.*;
+import org.nopware.jwt_util.cli.common.HelpOption;
+import org.nopware.jwt_util.cli.common.StatsOption;
+import org.nopware.jwt_util.cli.common.WarmupOption;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+@Command(name = "generate", description = "Generates tokens for load tests, and prints one token per line.")
+@Slf4j
+public class GenerateCommand implements Callable<Integer> {
+    public static final String EXMSG_COUNT_OR_DURATION_REQUIRED = "Either --count or --duration is required.";
+    public static final String EXMSG_SUBJECTS_MUST_BE_POSITIVE = "--subjects must be positive.";
+    public static final String EXMSG_RATE_MUST_NOT_BE_NEGATIVE = "--rate must be zero or positive.";
+    public static final String EXMSG_OUTPUT_CLOSED = "Failed to write to stdout. (e.g. the pipe is closed)";
+    public static final String MSG_GENERATED = "Generated %d tokens in %.3f s (%.1f tokens/s)";
+
+    // Checking the output flushes it, so it is checked once every this many tokens.
+    static final int CHECK_ERROR_INTERVAL = 1024;
+
+    @Mixin
+    private HelpOption helpOption;
+
+    @Mixin
+    private StatsOption statsOption;
+
+    @Mixin
+    private WarmupOption warmupOption;
+
+    @Option(names = {"--alg"}, required = false, description = "The algorithm for encoding.")
+    private Alg alg;
+
+    @Option(names = {"--key"}, required = false, description = "The key or secret for signing.")
+    private Path keyPath;
+
+    @Option(names = {"--header"}, required = false, description = "The header JSON string.")
+    private String header;
+
+    @Option(names = {"--payload"}, required = false, description = "The payload file of the fixed claims. It must not contain iat, exp, jti and sub.")
+    private Path payloadPath;
+
+    @Option(names = {"--count"}, description = "The number of tokens to generate.")
+    private long count;
+
+    @Option(names = {"--duration"}, paramLabel = "<seconds>", description = "How long to generate tokens in seconds.")
+    private long durationSeconds;
+
+    @Option(names = {"--rate"}, paramLabel = "<tokens/s>", description = "The target rate in tokens per second. 0 for maximum speed. (default: 0)")
+    private double rate;
+
+    @Option(names = {"--threads"}, description = "The number of threads for signing. 0 for the number of processors. (default: 0)")
+    private int threads;
+
+    @Option(names = {"--jti"}, description = "How jti varies: ${COMPLETION-CANDIDATES}. (default: ${DEFAULT-VALUE})")
+    private TokenGenerator.Mode jwtId = TokenGenerator.Mode.RANDOM;
+
+    @Option(names = {"--sub"}, description = "How sub varies: ${COMPLETION-CANDIDATES}. (default: ${DEFAULT-VALUE})")
+    private TokenGenerator.Mode subject = TokenGenerator.Mode.SEQUENTIAL;
+
+    @Option(names = {"--subjects"}, description = "The number of distinct subjects. (default: ${DEFAULT-VALUE})")
+    private long subjects = 1000;
+
+    @Option(names = {"--ttl"}, paramLabel = "<seconds>", description = "exp - iat in seconds. (default: ${DEFAULT-VALUE})")
+    private long ttl = 3600;
+
+    @Option(names = {"--iat-spread"}, paramLabel = "<seconds>", description = "Spread iat randomly over this many seconds before now. (default: 0)")
+    private long issuedAtSpread;
+
+    @Override
+    public Integer call() {
+        if (count <= 0 && durationSeconds <= 0) {
+            System.err.println(EXMSG_COUNT_OR_DURATION_REQUIRED);
+            return CommandLine.ExitCode.USAGE;
+        }
+        if (subjects < 1) {
+            System.err.println(EXMSG_SUBJECTS_MUST_BE_POSITIVE);
+            return CommandLine.ExitCode.USAGE;
+        }
+        // Also rejects NaN, which picocli parses as a double.
+        if (!(rate >= 0)) {
+            System.err.println(EXMSG_RATE_MUST_NOT_BE_NEGATIVE);
+            return CommandLine.ExitCode.USAGE;
+        }
+
+        TokenTemplate template;
+        try {
+            if (alg == null) {
+                alg = Alg.NONE;
+            }
+
+            byte[] keyOrSecret = KeyUtil.readKeyOrSecret(alg, keyPath);
+            Algorithm algorithm = Algorithms.forSigning(alg, keyOrSecret);
+            String payload = payloadPath == null ? "{}" : IOUtil.readStringFromFileOrStdin(payloadPath);
+            template = new TokenTemplate(Optional.ofNullable(header), payload, algorithm);
+            warmupOption.warmUpSigning(algorithm, Optional.ofNullable(header));
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+            // e.g. The key file does not exist.
+            System.err.println(e.getMessage());
+            log.debug("Failed to load the key or the payload.", e);
+            return 1;
+        } catch (IllegalArgumentException e) {
+            // e.g. The payload contains a variable claim.
+            System.err.println(e.getMessage());
+            return 1;
+        }
+
+        TokenGenerator generator = TokenGenerator.builder()
+                .template(template)
+                .count(Math.max(count, 0))
+                .duration(durationSeconds > 0 ? Duration.ofSeconds(durationSeconds) : null)
+                .rate(rate)
+                .threads(BatchRunner.threadsOrProcessors(threads))
+                .jwtId(jwtId)
+                .subject(subject)
+                .subjects(subjects)
+                .ttl(ttl)
+                .issuedAtSpread(issuedAtSpread)
+                .build();
+
+        // Given System.out itself, checkError() reports the errors System.out swallows, e.g. EPIPE of "| head".
+        PrintWriter out = new PrintWriter(System.out, false, StandardCharsets.UTF_8);
+        // About once a second at a low rate.
+        long checkErrorInterval = rate > 0 ? Math.max(1, Math.min(CHECK_ERROR_INTERVAL, (long) rate)) : CHECK_ERROR_INTERVAL;
+        long[] written = {0};
+        TokenGenerator.Result result;
+        try {
+            result = generator.run(token -> {
+                out.println(token);
+                if (++written[0] % checkErrorInterval == 0 && out.checkError()) {
+                    throw new UncheckedIOException(EXMSG_OUTPUT_CLOSED, new IOException(EXMSG_OUTPUT_CLOSED));
+                }
+            });
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            log.debug("Failed to generate JWT.", e);
+            return 1;
+        } finally {
+            out.flush();
+        }
+
+        System.err.println(String.format(MSG_GENERATED, result.getCount(), result.getElapsed().toNanos() / 1e9, result.tokensPerSecond()));
+        return 0;
+    }
+}
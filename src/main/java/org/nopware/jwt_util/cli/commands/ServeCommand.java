@@ -0,0 +1,126 @@
+package org.nopware.jwt_util.cli.commands;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.nopware.jwt_util.*;
+import org.nopware.jwt_util.cli.common.HelpOption;
+import org.nopware.jwt_util.cli.common.StatsOption;
+import org.nopware.jwt_util.cli.common.VerificationCacheOption;
+import org.nopware.jwt_util.cli.common.WarmupOption;
+import org.nopware.jwt_util.cli.common.VerificationKeyOption;
+import org.nopware.jwt_util.server.LineProtocolHandler;
+import org.nopware.jwt_util.server.UnixDomainSocketServer;
+import picocli.CommandLine;
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+@Command(name = "serve", description = "Serves encode/decode/verify over a Unix domain socket with a line protocol.")
+@Slf4j
+public class ServeCommand implements Callable<Integer> {
+    public static final String EXMSG_FAILED_TO_START = "Failed to start server: ";
+    public static final String EXMSG_ALG_AND_SIGNING_KEY_REQUIRED = "--alg and --signing-key must be specified together.";
+
+    @Mixin
+    private HelpOption helpOption;
+
+    @Mixin
+    private StatsOption statsOption;
+
+    @Mixin
+    private WarmupOption warmupOption;
+
+    @Mixin
+    private VerificationCacheOption verificationCacheOption;
+
+    @Option(names = {"--socket"}, required = true, description = "The path of the Unix domain socket.")
+    private Path socketPath;
+
+    @ArgGroup(exclusive = true, multiplicity = "0..1")
+    private VerificationKeyOption keyOption;
+
+    @Option(names = {"--reload"}, required = false, description = "Reloads the key or JWKS file for verifying when it changes.")
+    private boolean reload;
+
+    @Option(names = {"--alg"}, required = false, description = "The algorithm for encoding.")
+    private Alg alg;
+
+    @Option(names = {"--signing-key"}, required = false, description = "The key or secret for encoding.")
+    private Path signingKeyPath;
+
+    @Option(names = {"--header"}, required = false, description = "The header JSON string for encoding.")
+    private String header;
+
+    @Override
+    public Integer call() {
+        if ((alg == null) != (signingKeyPath == null)) {
+            System.err.println(EXMSG_ALG_AND_SIGNING_KEY_REQUIRED);
+            return CommandLine.ExitCode.USAGE;
+        }
+
+        UnixDomainSocketServer server;
+        try {
+            VerificationCache verificationCache = verificationCacheOption.newVerificationCache();
+            AlgorithmResolver algorithmResolver;
+            if (keyOption == null) {
+                algorithmResolver = null;
+            } else if (reload) {
+                // The watcher is a daemon thread, and stops with the process.
+                ReloadingAlgorithmResolver reloadingAlgorithmResolver = keyOption.newReloadingAlgorithmResolver();
+                if (verificationCache != null) {
+                    // A verdict of the previous key must not outlive it.
+                    reloadingAlgorithmResolver.addReloadListener(verificationCache::invalidateAll);
+                }
+                algorithmResolver = reloadingAlgorithmResolver;
+            } else {
+                algorithmResolver = keyOption.newAlgorithmResolver();
+            }
+            Algorithm algorithmForSigning = null;
+            if (alg != null) {
+                byte[] keyOrSecret = KeyUtil.readKeyOrSecret(alg, signingKeyPath);
+                algorithmForSigning = Algorithms.forSigning(alg, keyOrSecret);
+            }
+
+            // Before binding the socket, so that no request waits for warming up.
+            if (algorithmResolver != null) {
+                warmupOption.warmUpVerifying(algorithmResolver);
+            }
+            if (algorithmForSigning != null) {
+                warmupOption.warmUpSigning(algorithmForSigning, Optional.ofNullable(header));
+            }
+
+            LineProtocolHandler handler = new LineProtocolHandler(algorithmResolver, algorithmForSigning, header, verificationCache);
+            server = new UnixDomainSocketServer(socketPath, handler);
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+            System.err.println(EXMSG_FAILED_TO_START + e.getMessage());
+            log.debug("Failed to start server.", e);
+            return CommandLine.ExitCode.SOFTWARE;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                log.debug("Failed to stop server.", e);
+            }
+        }));
+
+        try {
+            server.serve();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            log.debug("Server stopped.", e);
+            return CommandLine.ExitCode.SOFTWARE;
+        }
+
+        return CommandLine.ExitCode.OK;
+    }
+}
@@ -3,19 +3,29 @@ package org.nopware.jwt_util.cli.commands;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.nopware.jwt_util.*;
 import org.nopware.jwt_util.cli.common.HelpOption;
+import org.nopware.jwt_util.cli.common.StatsOption;
+import org.nopware.jwt_util.cli.common.VerificationCacheOption;
+import org.nopware.jwt_util.cli.common.WarmupOption;
+import org.nopware.jwt_util.cli.common.VerificationKeyOption;
 import picocli.CommandLine;
+import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
-import java.io.IOException;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Iterator;
 import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 @Command(name = "verify", description = "Verifies a JWT token.")
 @Slf4j
@@ -24,33 +34,62 @@ public class VerifyCommand implements Callable<Integer> {
     public static final String MSG_VALID = "OK";
     public static final String MSG_INVALID = "INVALID: ";
     public static final String EXMSG_FAILED_TO_READ_JWT = "Failed to read JWT file: ";
-
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    public static final String EXMSG_FAILED_TO_READ_KEY = "Failed to read key file: ";
+    public static final String EXMSG_FAILED_TO_READ_DENYLIST = "Failed to read denylist file: ";
 
     @Mixin
     private HelpOption helpOption;
 
+    @Mixin
+    private StatsOption statsOption;
+
+    @Mixin
+    private WarmupOption warmupOption;
+
+    @Mixin
+    private VerificationCacheOption verificationCacheOption;
+
     @Parameters(index = "0", arity = "1", description = "The JWT file to decode.")
     private Path jwtPath;
 
-    @Option(names = {"--key"}, required = true, description = "The key or secret for verifying.")
-    private Path keyPath;
+    @ArgGroup(exclusive = true, multiplicity = "1")
+    private VerificationKeyOption keyOption;
+
+    @Option(names = {"--batch"}, description = "Verify newline-delimited tokens, and print one result line per token in input order.")
+    private boolean batch;
+
+    @Option(names = {"--threads"}, description = "The number of threads for verifying in batch mode. 0 for the number of processors. (default: 0)")
+    private int threads;
+
+    @Option(names = {"--deny-jti"}, paramLabel = "<denylistPath>",
+            description = "Reject tokens whose jti is in the denylist file. A text file of one jti per line, or a file compiled by the denylist command.")
+    private Path denylistPath;
 
     @Override
     public Integer call() throws Exception {
+        ClaimPolicy policy;
         try {
-            String jwt = IOUtil.readStringFromFileOrStdin(jwtPath);
-            DecodedJWT decode = Decoder.decode(jwt);
-            String headerStr = new String(IOUtil.base64Decode(decode.getHeader()));
+            policy = denylistPath == null
+                    ? ClaimPolicy.DEFAULT
+                    : ClaimPolicy.builder().jtiDenylist(JtiDenylist.open(denylistPath)).build();
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(EXMSG_FAILED_TO_READ_DENYLIST + e.getMessage());
+            log.debug("Failed to read denylist file.", e);
+            return CommandLine.ExitCode.SOFTWARE;
+        }
 
-            Header header = objectMapper.readValue(headerStr, Header.class);
+        if (batch) {
+            return verifyBatch(policy);
+        }
 
-            Alg alg = Alg.valueOf(header.getAlg());
-            byte[] keyOrSecret = alg == Alg.NONE ? null : KeyUtil.readKeyOrSecret(alg, keyPath);
-            Algorithm algorithm = Algorithms.forVerifying(alg, keyOrSecret);
+        try {
+            String jwt = IOUtil.readStringFromFileOrStdin(jwtPath);
+            DecodedJWT decode = Decoder.decode(jwt);
 
             try {
-                DecodedJWT ignore = Decoder.verify(jwt, algorithm);
+                // The same resolution as in batch mode, e.g. an unsupported algorithm or "none" is invalid.
+                Algorithm algorithm = keyOption.newAlgorithmResolver().resolve(decode);
+                DecodedJWT ignore = Decoder.verify(decode, algorithm, policy);
                 System.out.println(MSG_VALID);
             } catch (JWTVerificationException e) {
                 System.out.println(MSG_INVALID + e.getMessage());
@@ -65,4 +104,81 @@ public class VerifyCommand implements Callable<Integer> {
 
         return CommandLine.ExitCode.OK;
     }
+
+    private int verifyBatch(ClaimPolicy policy) {
+        AlgorithmResolver resolver;
+        try {
+            resolver = keyOption.newAlgorithmResolver();
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+            System.out.println(EXMSG_FAILED_TO_READ_KEY + e.getMessage());
+            log.debug("Failed to read key file.", e);
+            return CommandLine.ExitCode.SOFTWARE;
+        }
+        warmupOption.warmUpVerifying(resolver);
+        VerificationCache verificationCache = verificationCacheOption.newVerificationCache();
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        long invalid;
+        try {
+            if (IOUtil.isMappable(jwtPath)) {
+                // Map the file rather than reading it into the heap. It can be larger than the heap.
+                try (MappedTokenReader tokens = new MappedTokenReader(jwtPath)) {
+                    invalid = runBatch(tokens, token -> verifyOne(resolver, policy, verificationCache, IOUtil.asciiString(token)), out);
+                }
+            } else {
+                try (BufferedReader reader = IOUtil.newBufferedReaderFromFileOrStdin(jwtPath)) {
+                    Iterator<String> tokens = reader.lines()
+                            .map(String::strip)
+                            .filter(line -> !line.isEmpty())
+                            .iterator();
+                    invalid = runBatch(tokens, token -> verifyOne(resolver, policy, verificationCache, token), out);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            out.println(EXMSG_FAILED_TO_READ_JWT + e.getMessage());
+            log.debug("Failed to read JWT file.", e);
+            return CommandLine.ExitCode.SOFTWARE;
+        } finally {
+            out.flush();
+        }
+
+        return invalid == 0 ? CommandLine.ExitCode.OK : CommandLine.ExitCode.SOFTWARE;
+    }
+
+    /**
+     * Runs the verification for each token, and prints the results in input order.
+     *
+     * @return the number of invalid tokens
+     */
+    private <T> long runBatch(Iterator<T> tokens, Function<T, String> verification, PrintWriter out) {
+        long[] invalid = {0};
+        BatchRunner.run(tokens, verification, result -> {
+            if (!MSG_VALID.equals(result)) {
+                invalid[0]++;
+            }
+            out.println(result);
+        }, BatchRunner.threadsOrProcessors(threads));
+        return invalid[0];
+    }
+
+    private static String verifyOne(AlgorithmResolver resolver, ClaimPolicy policy, @Nullable VerificationCache verificationCache, String jwt) {
+        if (verificationCache != null && verificationCache.isValid(jwt)) {
+            return MSG_VALID;
+        }
+
+        // Before resolving the key, so that a verdict of a rotated key is not cached.
+        long generation = verificationCache == null ? 0 : verificationCache.generation();
+        try {
+            DecodedJWT decode = Decoder.decode(jwt);
+            Algorithm algorithm = resolver.resolve(decode);
+            DecodedJWT verified = Decoder.verify(decode, algorithm, policy);
+            if (verificationCache != null) {
+                verificationCache.putValid(jwt, verified, generation);
+            }
+            return MSG_VALID;
+        } catch (JWTVerificationException | IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+            // Don't log each failure. The result line has the reason.
+            return MSG_INVALID + e.getMessage();
+        }
+    }
 }
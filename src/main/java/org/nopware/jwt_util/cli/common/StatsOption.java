@@ -0,0 +1,15 @@
+package org.nopware.jwt_util.cli.common;
+
+import org.nopware.jwt_util.stats.Stats;
+import picocli.CommandLine.Option;
+
+public class StatsOption {
+
+    @Option(names = {"--stats"}, description = "Print latency percentiles of each phase to stderr at exit.")
+    void setStats(boolean stats) {
+        // Printed by a shutdown hook, so that the stats of a server killed by a signal are printed too.
+        if (stats && Stats.enable()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> Stats.print(System.err)));
+        }
+    }
+}
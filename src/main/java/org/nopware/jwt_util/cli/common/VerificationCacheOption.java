@@ -0,0 +1,29 @@
+package org.nopware.jwt_util.cli.common;
+
+import org.nopware.jwt_util.VerificationCache;
+import picocli.CommandLine.Option;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+public class VerificationCacheOption {
+
+    @Option(names = {"--cache"}, arity = "0..1", paramLabel = "<size>", fallbackValue = "" + VerificationCache.DEFAULT_MAXIMUM_SIZE,
+            description = "Cache valid verdicts of up to <size> tokens, so that a recurring token is not verified again. (default size: " + VerificationCache.DEFAULT_MAXIMUM_SIZE + ")")
+    long maximumSize;
+
+    @Option(names = {"--cache-ttl"}, paramLabel = "<seconds>",
+            description = "The maximum time to cache a verdict in seconds. A verdict expires at the exp of the token at the latest. (default: ${DEFAULT-VALUE})")
+    long maxTtlSeconds = VerificationCache.DEFAULT_MAX_TTL.toSeconds();
+
+    /**
+     * Returns a new cache, or null if the cache is not enabled.
+     */
+    @Nullable
+    public VerificationCache newVerificationCache() {
+        if (maximumSize <= 0 || maxTtlSeconds <= 0) {
+            return null;
+        }
+        return new VerificationCache(maximumSize, Duration.ofSeconds(maxTtlSeconds));
+    }
+}
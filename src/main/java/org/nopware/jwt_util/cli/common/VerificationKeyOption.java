@@ -0,0 +1,61 @@
+package org.nopware.jwt_util.cli.common;
+
+import org.nopware.jwt_util.AlgorithmResolver;
+import org.nopware.jwt_util.KeyFileAlgorithmResolver;
+import org.nopware.jwt_util.ReloadingAlgorithmResolver;
+import org.nopware.jwt_util.jwks.JwksAlgorithmResolver;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * Exclusive options for the key material for verifying. Use with {@code @ArgGroup(exclusive = true)}.
+ */
+public class VerificationKeyOption {
+
+    @Option(names = {"--key"}, required = true, description = "The key or secret for verifying.")
+    Path keyPath;
+
+    @Option(names = {"--jwks"}, required = true, description = "The JWKS file for verifying. The key is selected by the \"kid\" header.")
+    Path jwksPath;
+
+    public boolean isJwks() {
+        return jwksPath != null;
+    }
+
+    public Path getKeyPath() {
+        return keyPath;
+    }
+
+    public Path getJwksPath() {
+        return jwksPath;
+    }
+
+    /**
+     * Loads the key file or the JWKS file.
+     */
+    public AlgorithmResolver newAlgorithmResolver() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        if (isJwks()) {
+            return new JwksAlgorithmResolver(jwksPath);
+        } else {
+            return new KeyFileAlgorithmResolver(keyPath);
+        }
+    }
+
+    /**
+     * Loads the key file or the JWKS file, and reloads it when the file changes.
+     * <p>
+     *     All algorithms are built on loading, so that no token waits for parsing the key after reloading.
+     *     A key file which fits none of the algorithms of the previous key is not swapped in.
+     */
+    public ReloadingAlgorithmResolver newReloadingAlgorithmResolver() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        if (isJwks()) {
+            return new ReloadingAlgorithmResolver(jwksPath, JwksAlgorithmResolver::new);
+        } else {
+            return new ReloadingAlgorithmResolver(keyPath, KeyFileAlgorithmResolver.preloadingLoader());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.nopware.jwt_util.cli.common;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.nopware.jwt_util.AlgorithmResolver;
+import org.nopware.jwt_util.KeyFileAlgorithmResolver;
+import org.nopware.jwt_util.Warmup;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Optional;
+
+@Slf4j
+public class WarmupOption {
+
+    @Option(names = {"--warmup"}, arity = "0..1", paramLabel = "<iterations>", fallbackValue = "" + Warmup.DEFAULT_ITERATIONS,
+            description = "Warm up with synthetic tokens before processing real ones. (default iterations: " + Warmup.DEFAULT_ITERATIONS + ")")
+    int iterations;
+
+    public boolean isEnabled() {
+        return iterations > 0;
+    }
+
+    /**
+     * Warms up verifying with the algorithms of the resolver, if enabled.
+     * A failure is logged and ignored, since warming up is only an optimization.
+     */
+    public void warmUpVerifying(AlgorithmResolver resolver) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (resolver instanceof KeyFileAlgorithmResolver keyFileAlgorithmResolver) {
+            // It builds algorithms on resolving by default.
+            keyFileAlgorithmResolver.preload();
+        }
+        try {
+            Warmup.verifying(resolver.algorithms(), iterations);
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            log.warn("Failed to warm up verifying.", e);
+        }
+    }
+
+    /**
+     * Warms up signing with the algorithm, if enabled.
+     * A failure is logged and ignored, since warming up is only an optimization.
+     */
+    public void warmUpSigning(Algorithm algorithm, Optional<String> headerJson) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Warmup.signing(algorithm, headerJson, iterations);
+        } catch (RuntimeException e) {
+            log.warn("Failed to warm up signing.", e);
+        }
+    }
+}
@@ -8,7 +8,7 @@ import picocli.CommandLine.Mixin;
 import static picocli.CommandLine.Option;
 
 @Command(
-        subcommands = {DecodeCommand.class, EncodeCommand.class, VerifyCommand.class},
+        subcommands = {DecodeCommand.class, EncodeCommand.class, VerifyCommand.class, ServeCommand.class, GenerateCommand.class, DenylistCommand.class},
         versionProvider = VersionProvider.class
 )
 public class CommandLineParser {
@@ -0,0 +1,176 @@
+package org.nopware.jwt_util.hsalg;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.nopware.jwt_util.IOUtil;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Objects;
+
+class HS extends Algorithm {
+    static final String EXMSG_SECRET_IS_NULL = "The Secret cannot be null";
+    static final String EXMSG_SECRET_IS_EMPTY = "The Secret cannot be empty";
+
+    private final int bits;
+
+    private final SecretKeySpec secretKey;
+
+    /*
+     * Looking up a Mac by name and initializing it with the key is much more expensive than computing the MAC of a token.
+     * So the Mac is initialized once as a prototype, and each thread keeps its own clone of it.
+     * A Mac object returns to the initialized state after doFinal(), so it can be reused.
+     */
+    private final Mac prototype;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    // 64 bytes fit a MAC by SHA-512.
+    private static final ThreadLocal<byte[]> signatureBuffers = ThreadLocal.withInitial(() -> new byte[64]);
+
+    // The signing input of a token being verified. It grows for large tokens.
+    private static final ThreadLocal<byte[]> inputBuffers = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    protected HS(int bits, byte[] secret) throws IllegalArgumentException, InvalidKeySpecException {
+        super(name(bits), description(bits));
+        if (secret == null) {
+            throw new IllegalArgumentException(EXMSG_SECRET_IS_NULL);
+        }
+        // SecretKeySpec rejects an empty key by IllegalArgumentException. An empty key file is invalid, not a bug.
+        if (secret.length == 0) {
+            throw new InvalidKeySpecException(EXMSG_SECRET_IS_EMPTY);
+        }
+        this.bits = bits;
+        this.secretKey = new SecretKeySpec(secret, macAlgorithm(bits));
+        this.prototype = initializedMac();
+    }
+
+    private static String name(int bits) {
+        return String.format("HS%d", bits);
+    }
+
+    private static String description(int bits) {
+        return String.format("HMAC using SHA-%d", bits);
+    }
+
+    private static String macAlgorithm(int bits) {
+        return String.format("HmacSHA%d", bits);
+    }
+
+    private Mac initializedMac() throws IllegalArgumentException {
+        try {
+            Mac mac = Mac.getInstance(macAlgorithm(bits));
+            mac.init(secretKey);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // The provider does not support cloning. Initialize another one.
+            return initializedMac();
+        }
+    }
+
+    private void checkAlgorithm(DecodedJWT decodedJWT) throws AlgorithmMismatchException {
+        String alg = decodedJWT.getAlgorithm();
+        if (!Objects.equals(alg, getName())) {
+            throw new AlgorithmMismatchException(String.format("Expected algorithm %s, but got %s", getName(), alg));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void verify(DecodedJWT decodedJWT) throws SignatureVerificationException {
+        checkAlgorithm(decodedJWT);
+
+        String header = decodedJWT.getHeader();
+        String payload = decodedJWT.getPayload();
+        byte[] input = inputBuffer(header.length() + 1 + payload.length());
+        int inputLength = putAscii(header, input, 0);
+        input[inputLength++] = '.';
+        inputLength = putAscii(payload, input, inputLength);
+
+        Mac mac = macs.get();
+        mac.update(input, 0, inputLength);
+        byte[] expected = mac.doFinal();
+
+        int length;
+        byte[] actual = signatureBuffers.get();
+        String signature = decodedJWT.getSignature();
+        try {
+            if (IOUtil.base64UrlDecodedLength(signature.length()) > actual.length) {
+                // Longer than any MAC.
+                throw new SignatureVerificationException(this);
+            }
+            length = IOUtil.base64UrlDecode(signature, 0, signature.length(), actual, 0);
+        } catch (IllegalArgumentException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+
+        if (!constantTimeEquals(expected, actual, length)) {
+            throw new SignatureVerificationException(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] sign(byte[] headerBytes, byte[] payloadBytes) throws SignatureGenerationException {
+        Mac mac = macs.get();
+        // Don't concatenate. Update the Mac with each part.
+        mac.update(headerBytes);
+        mac.update((byte) '.');
+        mac.update(payloadBytes);
+        return mac.doFinal();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+        return macs.get().doFinal(contentBytes);
+    }
+
+    private static byte[] inputBuffer(int minLength) {
+        byte[] buffer = inputBuffers.get();
+        if (buffer.length < minLength) {
+            buffer = new byte[Math.max(minLength, buffer.length * 2)];
+            inputBuffers.set(buffer);
+        }
+        return buffer;
+    }
+
+    // A base64url string is ASCII, so each char is a byte.
+    private static int putAscii(String ascii, byte[] dst, int offset) {
+        for (int i = 0; i < ascii.length(); i++) {
+            dst[offset++] = (byte) ascii.charAt(i);
+        }
+        return offset;
+    }
+
+    // Compare all bytes regardless of where they differ, not to leak the position by timing.
+    private static boolean constantTimeEquals(byte[] expected, byte[] actual, int actualLength) {
+        if (expected.length != actualLength) {
+            return false;
+        }
+        int result = 0;
+        for (int i = 0; i < actualLength; i++) {
+            result |= expected[i] ^ actual[i];
+        }
+        return result == 0;
+    }
+}
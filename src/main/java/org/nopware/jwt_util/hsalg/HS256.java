@@ -0,0 +1,9 @@
+package org.nopware.jwt_util.hsalg;
+
+import java.security.spec.InvalidKeySpecException;
+
+public class HS256 extends HS {
+    public HS256(byte[] secret) throws IllegalArgumentException, InvalidKeySpecException {
+        super(256, secret);
+    }
+}
@@ -0,0 +1,9 @@
+package org.nopware.jwt_util.hsalg;
+
+import java.security.spec.InvalidKeySpecException;
+
+public class HS384 extends HS {
+    public HS384(byte[] secret) throws IllegalArgumentException, InvalidKeySpecException {
+        super(384, secret);
+    }
+}
@@ -0,0 +1,9 @@
+package org.nopware.jwt_util.hsalg;
+
+import java.security.spec.InvalidKeySpecException;
+
+public class HS512 extends HS {
+    public HS512(byte[] secret) throws IllegalArgumentException, InvalidKeySpecException {
+        super(512, secret);
+    }
+}
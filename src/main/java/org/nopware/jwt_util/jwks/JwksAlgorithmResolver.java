@@ -0,0 +1,212 @@
+package org.nopware.jwt_util.jwks;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.nopware.jwt_util.Alg;
+import org.nopware.jwt_util.AlgorithmResolver;
+import org.nopware.jwt_util.Algorithms;
+import org.nopware.jwt_util.IOUtil;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.*;
+import java.util.*;
+
+/**
+ * Resolves the algorithm from a JWKS (JSON Web Key Set, RFC 7517) by the "kid" and "alg" headers.
+ * <p>
+ *     Every key is parsed, and every algorithm is built on construction,
+ *     so resolving a token is just a lookup by "kid" and "alg".
+ * <p>
+ *     A key with "alg" is used only for the algorithm.
+ *     A key without "alg" is used for every algorithm that fits the key type. (and the curve for EC keys)
+ *     A key with "use" other than "sig" is ignored.
+ *     A token without "kid" is verified with the keys without "kid".
+ */
+@Slf4j
+public class JwksAlgorithmResolver implements AlgorithmResolver {
+    static final String EXMSG_NO_KEYS = "No \"keys\" in JWKS";
+    static final String EXMSG_NO_KEY_FOR_TOKEN = "No key in JWKS for kid=%s, alg=%s";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // kid -> alg -> algorithm. The kid is null for keys without "kid".
+    private final Map<String, Map<Alg, Algorithm>> algorithms;
+
+    /**
+     * @param jwksFile the JWKS file
+     * @throws IOException if the file cannot be read or parsed
+     * @throws NoSuchAlgorithmException if a key type is not supported by the platform
+     * @throws InvalidKeySpecException if a key is invalid
+     */
+    public JwksAlgorithmResolver(Path jwksFile) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        this(Files.readAllBytes(jwksFile));
+    }
+
+    /**
+     * @param jwksJson the JWKS in JSON
+     * @throws IOException if the JWKS cannot be parsed
+     * @throws NoSuchAlgorithmException if a key type is not supported by the platform
+     * @throws InvalidKeySpecException if a key is invalid
+     */
+    public JwksAlgorithmResolver(byte[] jwksJson) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        JsonNode keys = objectMapper.readTree(jwksJson).get("keys");
+        if (keys == null || !keys.isArray()) {
+            throw new IOException(EXMSG_NO_KEYS);
+        }
+
+        Map<String, Map<Alg, Algorithm>> algorithms = new HashMap<>();
+        for (JsonNode jwk : keys) {
+            String use = text(jwk, "use");
+            if (use != null && !use.equals("sig")) {
+                continue;
+            }
+
+            String kid = text(jwk, "kid");
+            Map<Alg, Algorithm> algorithmsForKid = algorithms.computeIfAbsent(kid, ignore -> new EnumMap<>(Alg.class));
+            for (Map.Entry<Alg, Algorithm> entry : algorithmsOf(jwk).entrySet()) {
+                if (algorithmsForKid.putIfAbsent(entry.getKey(), entry.getValue()) != null) {
+                    log.warn("Duplicate key in JWKS for kid={}, alg={}. The first one is used.", kid, entry.getKey());
+                }
+            }
+        }
+        this.algorithms = algorithms;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Algorithm resolve(DecodedJWT decodedJWT) throws JWTVerificationException {
+        String kid = decodedJWT.getKeyId();
+        String alg = decodedJWT.getAlgorithm();
+
+        Map<Alg, Algorithm> algorithmsForKid = algorithms.get(kid);
+        Algorithm algorithm = null;
+        if (algorithmsForKid != null) {
+            try {
+                algorithm = algorithmsForKid.get(Alg.fromHeader(alg));
+            } catch (IllegalArgumentException unsupported) {
+                // No key for an unsupported algorithm.
+            }
+        }
+        if (algorithm == null) {
+            throw new JWTVerificationException(String.format(EXMSG_NO_KEY_FOR_TOKEN, kid, alg));
+        }
+        return algorithm;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Algorithm> algorithms() {
+        return algorithms.values().stream().flatMap(algorithmsForKid -> algorithmsForKid.values().stream()).toList();
+    }
+
+    /**
+     * Returns the number of the pairs of kid and alg which have an algorithm.
+     */
+    public int size() {
+        return algorithms.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private static Map<Alg, Algorithm> algorithmsOf(JsonNode jwk) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        String kty = text(jwk, "kty");
+        if (kty == null) {
+            throw new IOException("No \"kty\" in JWK");
+        }
+
+        List<Alg> algs = switch (kty) {
+            case "RSA" -> List.of(Alg.RS256, Alg.RS384, Alg.RS512, Alg.PS256, Alg.PS384, Alg.PS512);
+            case "EC" -> switch (String.valueOf(text(jwk, "crv"))) {
+                case "P-256" -> List.of(Alg.ES256);
+                case "P-384" -> List.of(Alg.ES384);
+                case "P-521" -> List.of(Alg.ES512);
+                default -> List.of();
+            };
+            case "oct" -> List.of(Alg.HS256, Alg.HS384, Alg.HS512);
+            default -> List.of();
+        };
+
+        String alg = text(jwk, "alg");
+        if (alg != null) {
+            // Other algorithms, such as RSA-OAEP, are ignored.
+            algs = algs.stream().filter(candidate -> candidate.name().equals(alg)).toList();
+        }
+        if (algs.isEmpty()) {
+            log.debug("Ignored JWK: kty={}, alg={}", kty, alg);
+            return Map.of();
+        }
+
+        Map<Alg, Algorithm> algorithms = new EnumMap<>(Alg.class);
+        if (kty.equals("oct")) {
+            byte[] secret = bytes(jwk, "k");
+            for (Alg candidate : algs) {
+                algorithms.put(candidate, Algorithms.forVerifying(candidate, secret));
+            }
+        } else {
+            PublicKey publicKey = kty.equals("RSA") ? rsaPublicKey(jwk) : ecPublicKey(jwk);
+            for (Alg candidate : algs) {
+                algorithms.put(candidate, Algorithms.forVerifying(candidate, publicKey));
+            }
+        }
+        return algorithms;
+    }
+
+    private static PublicKey rsaPublicKey(JsonNode jwk) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        RSAPublicKeySpec keySpec = new RSAPublicKeySpec(unsigned(jwk, "n"), unsigned(jwk, "e"));
+        return KeyFactory.getInstance("RSA").generatePublic(keySpec);
+    }
+
+    private static PublicKey ecPublicKey(JsonNode jwk) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        String curve = switch (text(jwk, "crv")) {
+            case "P-256" -> "secp256r1";
+            case "P-384" -> "secp384r1";
+            default -> "secp521r1";
+        };
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(curve));
+            ECParameterSpec parameterSpec = parameters.getParameterSpec(ECParameterSpec.class);
+
+            ECPoint point = new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y"));
+            return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, parameterSpec));
+        } catch (InvalidParameterSpecException e) {
+            throw new InvalidKeySpecException(e);
+        }
+    }
+
+    @Nullable
+    private static String text(JsonNode jwk, String name) {
+        JsonNode node = jwk.get(name);
+        return node == null || !node.isTextual() ? null : node.asText();
+    }
+
+    private static byte[] bytes(JsonNode jwk, String name) throws IOException {
+        String base64Url = text(jwk, name);
+        if (base64Url == null) {
+            throw new IOException(String.format("No \"%s\" in JWK", name));
+        }
+        try {
+            return IOUtil.base64Decode(base64Url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(String.format("Illegal \"%s\" in JWK", name), e);
+        }
+    }
+
+    private static BigInteger unsigned(JsonNode jwk, String name) throws IOException {
+        return new BigInteger(1, bytes(jwk, name));
+    }
+}
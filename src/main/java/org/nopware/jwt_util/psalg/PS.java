@@ -4,10 +4,6 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.SignatureGenerationException;
 import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.nopware.jwt_util.Header;
 import org.nopware.jwt_util.IOUtil;
 
 import javax.annotation.Nullable;
@@ -17,10 +13,6 @@ import java.security.spec.PSSParameterSpec;
 import java.util.Objects;
 
 class PS extends Algorithm {
-    static {
-        Security.addProvider(new BouncyCastleProvider());
-    }
-
     private final int TRAILER_FIELD = 1; // It must be 1. (by RFC 4055)
 
     @Nullable
@@ -29,16 +21,26 @@ class PS extends Algorithm {
     @Nullable
     private final PrivateKey privateKey;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
     private final int bits;
+
+    private final PSProvider provider;
+
     protected PS(int bits,
                  @Nullable PublicKey publicKey,
                  @Nullable PrivateKey privateKey) {
+        this(bits, publicKey, privateKey, PSProvider.select(bits));
+    }
+
+    // The provider is configurable for testing.
+    PS(int bits,
+       @Nullable PublicKey publicKey,
+       @Nullable PrivateKey privateKey,
+       PSProvider provider) {
         super(name(bits), description(bits));
         this.publicKey = publicKey;
         this.privateKey = privateKey;
         this.bits = bits;
+        this.provider = provider;
     }
 
     private static String name(int bits) {
@@ -49,20 +51,11 @@ class PS extends Algorithm {
         return String.format("RSA-PSS using SHA-%d and MGF1 with SHA-%d", bits, bits);
     }
 
-    private Header headerOf(DecodedJWT decodedJWT) throws JsonProcessingException {
-        String headerStr = new String(IOUtil.base64Decode(decodedJWT.getHeader()));
-        return objectMapper.readValue(headerStr, Header.class);
-    }
-
     private void checkAlgorithm(DecodedJWT decodedJWT) throws RuntimeException {
-        try {
-            Header header = headerOf(decodedJWT);
-            String alg = header.getAlg();
-            if (!Objects.equals(alg, name(bits))) {
-                throw new RuntimeException(String.format("Expected algorithm %s, but got %s", name(bits), alg));
-            }
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+        // The header has already been parsed by JWT.decode. Don't decode and parse it again.
+        String alg = decodedJWT.getAlgorithm();
+        if (!Objects.equals(alg, getName())) {
+            throw new RuntimeException(String.format("Expected algorithm %s, but got %s", getName(), alg));
         }
     }
 
@@ -76,13 +69,17 @@ class PS extends Algorithm {
 
             String headerAndPayload = decodedJWT.getHeader() + "." + decodedJWT.getPayload();
             byte[] data = headerAndPayload.getBytes();
-            byte[] signature = IOUtil.base64Decode(decodedJWT.getSignature());
 
-            if (!doVerify(data, signature)) {
+            // Decode the signature into the buffer of this thread.
+            String signature = decodedJWT.getSignature();
+            byte[] buffer = signatureBuffer(signature.length() / 4 * 3 + 2);
+            int signatureLength = IOUtil.base64UrlDecode(signature, 0, signature.length(), buffer, 0);
+
+            if (!doVerify(data, buffer, 0, signatureLength)) {
                 throw new SignatureVerificationException(this);
             }
         } catch (InvalidAlgorithmParameterException | NoSuchAlgorithmException |
-                 SignatureException | InvalidKeyException e) {
+                 SignatureException | InvalidKeyException | IllegalArgumentException e) {
             throw new SignatureVerificationException(this, e);
         }
     }
@@ -99,10 +96,6 @@ class PS extends Algorithm {
         }
     }
 
-    private String algorithm() {
-        return String.format("SHA%dwithRSA/PSS", bits);
-    }
-
     private String mdName() {
         return String.format("SHA-%d", bits);
     }
@@ -124,25 +117,83 @@ class PS extends Algorithm {
         return new PSSParameterSpec(mdName(), "MGF1", mgf1ParameterSpec(), saltLength(), TRAILER_FIELD);
     }
 
-    // doSign is package-private for testing.
-    byte[] doSign(byte[] data) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, SignatureException {
-        Signature signatureSpi = Signature.getInstance(algorithm());
+    /*
+     * Signature objects are not thread-safe, and looking them up by name and initializing them is expensive.
+     * So each thread keeps its own initialized Signature objects.
+     * A Signature object returns to the initialized state after sign() or verify(), so it can be reused.
+     */
+    private final ThreadLocal<Signature> signers = new ThreadLocal<>();
+    private final ThreadLocal<Signature> verifiers = new ThreadLocal<>();
+
+    // 512 bytes fit a signature by a 4096-bit key.
+    private static final ThreadLocal<byte[]> signatureBuffers = ThreadLocal.withInitial(() -> new byte[512]);
+
+    private static byte[] signatureBuffer(int minLength) {
+        byte[] buffer = signatureBuffers.get();
+        if (buffer.length < minLength) {
+            buffer = new byte[minLength];
+            signatureBuffers.set(buffer);
+        }
+        return buffer;
+    }
+
+    private Signature newSignature() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+        Signature signatureSpi = provider.newSignature();
         signatureSpi.setParameter(pssParameterSpec());
+        return signatureSpi;
+    }
+
+    private Signature signer() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException {
+        Signature signatureSpi = signers.get();
+        if (signatureSpi == null) {
+            signatureSpi = newSignature();
+            signatureSpi.initSign(privateKey);
+            signers.set(signatureSpi);
+        }
+        return signatureSpi;
+    }
 
-        signatureSpi.initSign(privateKey);
-        signatureSpi.update(data);
+    private Signature verifier() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException {
+        Signature signatureSpi = verifiers.get();
+        if (signatureSpi == null) {
+            signatureSpi = newSignature();
+            signatureSpi.initVerify(publicKey);
+            verifiers.set(signatureSpi);
+        }
+        return signatureSpi;
+    }
 
-        return signatureSpi.sign();
+    PSProvider provider() {
+        return provider;
+    }
+
+    // doSign is package-private for testing.
+    byte[] doSign(byte[] data) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, SignatureException {
+        Signature signatureSpi = signer();
+        try {
+            signatureSpi.update(data);
+            return signatureSpi.sign();
+        } catch (SignatureException e) {
+            // The state of the Signature object is unknown. Don't reuse it.
+            signers.remove();
+            throw e;
+        }
     }
 
     // doVerify is package-private for testing.
     boolean doVerify(byte[] data, byte[] signature) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, SignatureException {
-        Signature signatureSpi = Signature.getInstance(algorithm());
-        signatureSpi.setParameter(pssParameterSpec());
-
-        signatureSpi.initVerify(publicKey);
-        signatureSpi.update(data);
+        return doVerify(data, signature, 0, signature.length);
+    }
 
-        return signatureSpi.verify(signature);
+    private boolean doVerify(byte[] data, byte[] signature, int offset, int length) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, SignatureException {
+        Signature signatureSpi = verifier();
+        try {
+            signatureSpi.update(data);
+            return signatureSpi.verify(signature, offset, length);
+        } catch (SignatureException e) {
+            // The state of the Signature object is unknown. Don't reuse it.
+            verifiers.remove();
+            throw e;
+        }
     }
 }
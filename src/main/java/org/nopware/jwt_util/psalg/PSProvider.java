@@ -0,0 +1,61 @@
+package org.nopware.jwt_util.psalg;
+
+import lombok.Value;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.annotation.Nullable;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.security.Signature;
+
+/**
+ * The provider of RSASSA-PSS signatures and the name of the algorithm in it.
+ * <p>
+ *     The JDK provider (SunRsaSign, since Java 11) is preferred.
+ *     BouncyCastle is loaded only if the JDK has no RSASSA-PSS, and it is not added to the global provider list.
+ *     The provider is pinned, so creating a {@link Signature} skips looking up the global provider list.
+ */
+@Value
+class PSProvider {
+    static final String JDK_PROVIDER_NAME = "SunRsaSign";
+    static final String JDK_ALGORITHM = "RSASSA-PSS";
+
+    Provider provider;
+    String algorithm;
+
+    // Loaded on first use. The class is not initialized unless BouncyCastle is needed.
+    private static class BouncyCastleHolder {
+        static final Provider INSTANCE = new BouncyCastleProvider();
+    }
+
+    /**
+     * Selects the JDK provider if available, or BouncyCastle.
+     *
+     * @param bits the bits of the hash
+     */
+    static PSProvider select(int bits) {
+        PSProvider jdk = jdk();
+        return jdk != null ? jdk : bouncyCastle(bits);
+    }
+
+    @Nullable
+    static PSProvider jdk() {
+        Provider provider = Security.getProvider(JDK_PROVIDER_NAME);
+        if (provider == null || provider.getService("Signature", JDK_ALGORITHM) == null) {
+            return null;
+        }
+        return new PSProvider(provider, JDK_ALGORITHM);
+    }
+
+    static PSProvider bouncyCastle(int bits) {
+        return new PSProvider(BouncyCastleHolder.INSTANCE, String.format("SHA%dwithRSA/PSS", bits));
+    }
+
+    /**
+     * Returns a new Signature object of the pinned provider. The parameters are not set yet.
+     */
+    Signature newSignature() throws NoSuchAlgorithmException {
+        return Signature.getInstance(algorithm, provider);
+    }
+}
@@ -0,0 +1,164 @@
+package org.nopware.jwt_util.server;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.nopware.jwt_util.AlgorithmResolver;
+import org.nopware.jwt_util.Decoder;
+import org.nopware.jwt_util.Encoder;
+import org.nopware.jwt_util.IOUtil;
+import org.nopware.jwt_util.VerificationCache;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Optional;
+
+/**
+ * Handles requests of the line protocol.
+ * <p>
+ *     A request is a line of a command and an argument separated by a space.
+ *     A response is a line, too.
+ * <pre>
+ *     VERIFY &lt;jwt&gt;          -&gt; OK | INVALID: &lt;reason&gt; | ERROR: &lt;reason&gt;
+ *     DECODE &lt;jwt&gt;          -&gt; OK {"header":{...},"payload":{...}} | ERROR: &lt;reason&gt;
+ *     ENCODE &lt;payload json&gt; -&gt; OK &lt;jwt&gt; | ERROR: &lt;reason&gt;
+ *     PING                  -&gt; OK
+ * </pre>
+ * <p>
+ *     The handler is thread-safe.
+ */
+public class LineProtocolHandler {
+    public static final String RES_OK = "OK";
+    public static final String RES_INVALID = "INVALID: ";
+    public static final String RES_ERROR = "ERROR: ";
+
+    static final String EXMSG_UNKNOWN_COMMAND = "Unknown command: ";
+    static final String EXMSG_NO_KEY_FOR_VERIFYING = "No key for verifying";
+    static final String EXMSG_NO_KEY_FOR_SIGNING = "No key for signing";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Nullable
+    private final AlgorithmResolver algorithmResolver;
+
+    @Nullable
+    private final Algorithm algorithmForSigning;
+
+    @Nullable
+    private final String headerJson;
+
+    @Nullable
+    private final VerificationCache verificationCache;
+
+    /**
+     * @param algorithmResolver the resolver for VERIFY, or null if VERIFY is not available
+     * @param algorithmForSigning the algorithm for ENCODE, or null if ENCODE is not available
+     * @param headerJson the header JSON for ENCODE
+     */
+    public LineProtocolHandler(@Nullable AlgorithmResolver algorithmResolver,
+                               @Nullable Algorithm algorithmForSigning,
+                               @Nullable String headerJson) {
+        this(algorithmResolver, algorithmForSigning, headerJson, null);
+    }
+
+    /**
+     * @param algorithmResolver the resolver for VERIFY, or null if VERIFY is not available
+     * @param algorithmForSigning the algorithm for ENCODE, or null if ENCODE is not available
+     * @param headerJson the header JSON for ENCODE
+     * @param verificationCache the cache of valid tokens for VERIFY, or null not to cache
+     */
+    public LineProtocolHandler(@Nullable AlgorithmResolver algorithmResolver,
+                               @Nullable Algorithm algorithmForSigning,
+                               @Nullable String headerJson,
+                               @Nullable VerificationCache verificationCache) {
+        this.algorithmResolver = algorithmResolver;
+        this.algorithmForSigning = algorithmForSigning;
+        this.headerJson = headerJson;
+        this.verificationCache = verificationCache;
+    }
+
+    /**
+     * Handles a request line.
+     *
+     * @param request the request line without the line terminator
+     * @return the response line without the line terminator
+     */
+    public String handle(String request) {
+        int space = request.indexOf(' ');
+        String command = space < 0 ? request : request.substring(0, space);
+        String argument = space < 0 ? "" : request.substring(space + 1).strip();
+
+        return switch (command) {
+            case "VERIFY" -> verify(argument);
+            case "DECODE" -> decode(argument);
+            case "ENCODE" -> encode(argument);
+            case "PING" -> RES_OK;
+            default -> error(EXMSG_UNKNOWN_COMMAND + command);
+        };
+    }
+
+    private String verify(String jwt) {
+        if (algorithmResolver == null) {
+            return error(EXMSG_NO_KEY_FOR_VERIFYING);
+        }
+
+        if (verificationCache != null && verificationCache.isValid(jwt)) {
+            return RES_OK;
+        }
+
+        // Before resolving the key, so that a verdict of a rotated key is not cached.
+        long generation = verificationCache == null ? 0 : verificationCache.generation();
+        try {
+            DecodedJWT decode = Decoder.decode(jwt);
+            Algorithm algorithm = algorithmResolver.resolve(decode);
+            DecodedJWT verified = Decoder.verify(decode, algorithm);
+            if (verificationCache != null) {
+                verificationCache.putValid(jwt, verified, generation);
+            }
+            return RES_OK;
+        } catch (JWTVerificationException e) {
+            return RES_INVALID + singleLine(e.getMessage());
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+            return error(e.getMessage());
+        }
+    }
+
+    private String decode(String jwt) {
+        try {
+            DecodedJWT decode = Decoder.decode(jwt);
+            ObjectNode decoded = objectMapper.createObjectNode();
+            decoded.set("header", objectMapper.readTree(IOUtil.base64Decode(decode.getHeader())));
+            decoded.set("payload", objectMapper.readTree(IOUtil.base64Decode(decode.getPayload())));
+            return RES_OK + " " + objectMapper.writeValueAsString(decoded);
+        } catch (JWTDecodeException | IOException e) {
+            return error(e.getMessage());
+        }
+    }
+
+    private String encode(String payloadJson) {
+        if (algorithmForSigning == null) {
+            return error(EXMSG_NO_KEY_FOR_SIGNING);
+        }
+
+        try {
+            return RES_OK + " " + Encoder.encode(Optional.ofNullable(headerJson), payloadJson, algorithmForSigning);
+        } catch (RuntimeException e) {
+            // e.g. The payload is not a JSON object.
+            return error(e.getMessage());
+        }
+    }
+
+    private static String error(String message) {
+        return RES_ERROR + singleLine(message);
+    }
+
+    private static String singleLine(@Nullable String message) {
+        return String.valueOf(message).replace('\r', ' ').replace('\n', ' ');
+    }
+}
@@ -0,0 +1,101 @@
+package org.nopware.jwt_util.server;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads lines of a bounded length.
+ * <p>
+ *     Unlike {@link java.io.BufferedReader#readLine()}, a client cannot make the server buffer an endless line.
+ *     A line ends with LF or CRLF.
+ */
+class LineReader {
+    static final String EXMSG_LINE_TOO_LONG = "The line is longer than %d characters";
+
+    /**
+     * Thrown when a line is longer than the maximum length. The rest of the stream cannot be read by lines.
+     */
+    static class LineTooLongException extends IOException {
+        LineTooLongException(int maxLength) {
+            super(String.format(EXMSG_LINE_TOO_LONG, maxLength));
+        }
+    }
+
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    /**
+     * @param reader the reader. It needs no buffering, because this reader buffers it.
+     * @param maxLength the maximum length of a line without the line terminator
+     */
+    LineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Reads a line.
+     *
+     * @return the line without the line terminator, or null at the end of the stream
+     * @throws LineTooLongException if the line is longer than the maximum length
+     * @throws IOException if reading fails
+     */
+    @Nullable
+    String readLine() throws IOException {
+        StringBuilder line = null;
+        while (true) {
+            if (position == limit) {
+                int n = reader.read(buffer, 0, buffer.length);
+                if (n == -1) {
+                    // The last line without a line terminator.
+                    return line == null ? null : stripCr(line.toString());
+                }
+                position = 0;
+                limit = n;
+            }
+
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            int length = position - start;
+            // +1 for CR of CRLF.
+            if ((line == null ? 0 : line.length()) + length > maxLength + 1) {
+                throw new LineTooLongException(maxLength);
+            }
+
+            if (position < limit) {
+                // Skip LF.
+                position++;
+                if (line == null) {
+                    // Most lines fit the buffer, and need no copy to a StringBuilder.
+                    return stripCr(new String(buffer, start, length));
+                }
+                return stripCr(line.append(buffer, start, length).toString());
+            }
+            if (line == null) {
+                line = new StringBuilder();
+            }
+            line.append(buffer, start, length);
+        }
+    }
+
+    /**
+     * Returns true if the next read does not block, e.g. pipelined requests are buffered.
+     */
+    boolean ready() throws IOException {
+        return position < limit || reader.ready();
+    }
+
+    private String stripCr(String line) throws LineTooLongException {
+        String stripped = line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+        if (stripped.length() > maxLength) {
+            throw new LineTooLongException(maxLength);
+        }
+        return stripped;
+    }
+}
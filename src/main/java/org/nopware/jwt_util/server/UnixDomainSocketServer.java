@@ -0,0 +1,132 @@
+package org.nopware.jwt_util.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the line protocol over a Unix domain socket.
+ * <p>
+ *     Each connection is served on its own virtual thread.
+ *     A connection can send any number of requests, and responses are returned in request order.
+ *     A request longer than {@link #MAX_REQUEST_LENGTH} is answered with an error, and the connection is closed.
+ */
+@Slf4j
+public class UnixDomainSocketServer implements Closeable {
+    public static final String EXMSG_NOT_A_SOCKET = "The path exists and is not a socket. It is not replaced.";
+
+    /**
+     * The maximum length of a request line. Several times as long as a token with many claims.
+     */
+    public static final int MAX_REQUEST_LENGTH = 64 * 1024;
+
+    private final Path socketPath;
+    private final LineProtocolHandler handler;
+    private final ServerSocketChannel serverSocketChannel;
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Binds the socket.
+     *
+     * @param socketPath the path of the socket file. An existing socket file is replaced.
+     * @param handler the handler for requests
+     * @throws IOException if the socket cannot be bound, or if the path exists and is not a socket
+     */
+    public UnixDomainSocketServer(Path socketPath, LineProtocolHandler handler) throws IOException {
+        this.socketPath = socketPath;
+        this.handler = handler;
+
+        // A socket file left by a previous process prevents binding.
+        deleteSocketFile(socketPath);
+        this.serverSocketChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        this.serverSocketChannel.bind(UnixDomainSocketAddress.of(socketPath));
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     *
+     * @throws IOException if accepting a connection fails
+     */
+    public void serve() throws IOException {
+        while (true) {
+            SocketChannel socketChannel;
+            try {
+                socketChannel = serverSocketChannel.accept();
+            } catch (ClosedChannelException closed) {
+                return;
+            }
+            executorService.submit(() -> serve(socketChannel));
+        }
+    }
+
+    private void serve(SocketChannel socketChannel) {
+        try (socketChannel;
+             Reader in = new InputStreamReader(Channels.newInputStream(socketChannel), StandardCharsets.UTF_8);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(socketChannel), StandardCharsets.UTF_8))) {
+            LineReader reader = new LineReader(in, MAX_REQUEST_LENGTH);
+            String request;
+            while (true) {
+                try {
+                    request = reader.readLine();
+                } catch (LineReader.LineTooLongException e) {
+                    // The rest of the line cannot be told from the next request. Answered with the error on closing.
+                    writer.write(LineProtocolHandler.RES_ERROR + e.getMessage());
+                    writer.write('\n');
+                    log.debug("Too long request.", e);
+                    return;
+                }
+                if (request == null) {
+                    return;
+                }
+                writer.write(handler.handle(request));
+                writer.write('\n');
+                // Pipelined requests are answered in one write.
+                if (!reader.ready()) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Connection closed.", e);
+        }
+    }
+
+    /**
+     * Stops accepting connections, and removes the socket file.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocketChannel.close();
+        executorService.shutdownNow();
+        deleteSocketFile(socketPath);
+    }
+
+    // Deletes the path only if it is a socket (or another special file), never a regular file, a directory or a link,
+    // e.g. when --socket points to a wrong path by mistake.
+    private static void deleteSocketFile(Path socketPath) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(socketPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (!attributes.isOther()) {
+            throw new FileAlreadyExistsException(socketPath.toString(), null, EXMSG_NOT_A_SOCKET);
+        }
+        Files.delete(socketPath);
+    }
+}
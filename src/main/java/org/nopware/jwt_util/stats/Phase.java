@@ -0,0 +1,21 @@
+package org.nopware.jwt_util.stats;
+
+/**
+ * The phases timed by {@link Stats}.
+ */
+public enum Phase {
+    /** Reading a token, payload or key file. */
+    READ_FILE,
+    /** Parsing a PEM object. */
+    PARSE_PEM,
+    /** Building an algorithm from a key. */
+    BUILD_KEY,
+    /** Decoding a token without verifying. */
+    DECODE,
+    /** Verifying a token. It includes decoding if the token is not decoded yet. */
+    VERIFY,
+    /** Serializing and base64url-encoding the header and payload of a token. */
+    ENCODE,
+    /** Signing a token, and assembling it with the signature. */
+    SIGN
+}
@@ -0,0 +1,102 @@
+package org.nopware.jwt_util.stats;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Process-wide latency histograms for each {@link Phase}.
+ * <p>
+ *     Recording is disabled by default, and then costs one volatile read per call.
+ *     Time a phase as follows:
+ *     <pre>{@code
+ *     long start = Stats.start();
+ *     try {
+ *         ...
+ *     } finally {
+ *         Stats.record(Phase.DECODE, start);
+ *     }
+ *     }</pre>
+ */
+public class Stats {
+    private static final AtomicBoolean enabled = new AtomicBoolean();
+
+    private static final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+    static {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Enables recording.
+     *
+     * @return true if recording was disabled
+     */
+    public static boolean enable() {
+        return enabled.compareAndSet(false, true);
+    }
+
+    public static boolean isEnabled() {
+        return enabled.get();
+    }
+
+    /**
+     * Returns the start time of a phase, or 0 if recording is disabled.
+     */
+    public static long start() {
+        return enabled.get() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since the start, unless recording was disabled at the start.
+     *
+     * @param phase the phase
+     * @param start the value returned by {@link #start()}
+     */
+    public static void record(Phase phase, long start) {
+        if (start != 0) {
+            histograms.get(phase).record(System.nanoTime() - start);
+        }
+    }
+
+    public static LatencyHistogram histogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Clears all histograms. Recording stays enabled or disabled.
+     */
+    public static void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Prints a table of the phases with any recorded values, in microseconds.
+     *
+     * @param out the output, typically stderr
+     */
+    public static void print(PrintStream out) {
+        out.printf("%-10s %10s %10s %10s %10s %10s%n", "phase", "count", "p50(us)", "p99(us)", "p99.9(us)", "max(us)");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histograms.get(phase);
+            if (histogram.count() == 0) {
+                continue;
+            }
+            out.printf("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n",
+                    phase.name().toLowerCase(),
+                    histogram.count(),
+                    micros(histogram.percentile(50)),
+                    micros(histogram.percentile(99)),
+                    micros(histogram.percentile(99.9)),
+                    micros(histogram.max()));
+        }
+        out.flush();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -0,0 +1,66 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.google.common.io.Resources;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AlgorithmRegistryTest {
+
+    private static byte[] readPemObject(String name) throws IOException {
+        try (InputStream inputStream = Resources.getResource(name).openStream()) {
+            return KeyUtil.readPemObject(inputStream);
+        }
+    }
+
+    @Test
+    void forSigningReturnsCachedAlgorithm() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        AlgorithmRegistry registry = new AlgorithmRegistry();
+        byte[] keyInPem = readPemObject("rsa-private.pem");
+
+        Algorithm first = registry.forSigning(Alg.RS256, keyInPem);
+        Algorithm second = registry.forSigning(Alg.RS256, keyInPem.clone()); // Same key, different array.
+
+        assertThat(second).isSameAs(first);
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void forVerifyingIsKeyedByAlgAndPurpose() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        AlgorithmRegistry registry = new AlgorithmRegistry();
+        byte[] keyInPem = readPemObject("rsa-public.pem");
+
+        Algorithm rs256 = registry.forVerifying(Alg.RS256, keyInPem);
+        Algorithm rs384 = registry.forVerifying(Alg.RS384, keyInPem);
+
+        assertThat(rs384).isNotSameAs(rs256);
+        assertThat(registry.forVerifying(Alg.RS256, keyInPem)).isSameAs(rs256);
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsWhenFull() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        AlgorithmRegistry registry = new AlgorithmRegistry(2);
+        for (int i = 0; i < 10; i++) {
+            registry.forSigning(Alg.HS256, KeyUtil.random(32));
+        }
+        assertThat(registry.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void propagatesCheckedException() throws IOException {
+        AlgorithmRegistry registry = new AlgorithmRegistry();
+        byte[] keyInPem = readPemObject("ec256-public.pem");
+
+        // An EC key is not an RSA key.
+        assertThrows(InvalidKeySpecException.class, () -> registry.forVerifying(Alg.RS256, keyInPem));
+        assertThat(registry.size()).isEqualTo(0);
+    }
+}
@@ -1,5 +1,6 @@
 package org.nopware.jwt_util;
 
+import com.auth0.jwt.algorithms.Algorithm;
 import com.google.common.io.Resources;
 import lombok.Value;
 import org.junit.jupiter.api.Test;
@@ -8,11 +9,17 @@ import org.nopware.jwt_util.cli.commands.VerifyCommand;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,6 +39,11 @@ class ApplicationTest {
     private final String SECRET_HS256 = "your-256-bit-secret";
     private final String SECRET_HS256_INVALID = "your-256-bit-secret-invalid";
 
+    /**
+     * An unsigned JWT with {"alg":"none"}
+     */
+    private final String JWT_NONE = "eyJhbGciOiJub25lIiwidHlwIjoiSldUIn0.eyJzdWIiOiJhZG1pbiJ9.";
+
     @Test
     void encodeWithRS256(@TempDir Path tmpDir) throws IOException, URISyntaxException {
         encodeAndTest(tmpDir, "rsa-private.pem", "RS256");
@@ -70,6 +82,142 @@ class ApplicationTest {
         System.out.println(encoded);
     }
 
+    @Test
+    void encodeBatchWithHS256(@TempDir Path tmpDir) throws IOException, URISyntaxException {
+        StringBuilder payloads = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            payloads.append("{\"sub\":\"").append(i).append("\"}\n");
+        }
+        Path payloadFile = tmpDir.resolve("claims.ndjson");
+        Files.writeString(payloadFile, payloads);
+
+        Path keyFile = Paths.get(Resources.getResource("secret-hs256.bin").toURI());
+
+        ByteArrayOutputStream captor = new ByteArrayOutputStream();
+        PrintStream standardOut = System.out;
+        try {
+            System.setOut(new PrintStream(captor));
+
+            int exit = Application.execute(new String[]{
+                    "encode",
+                    "--alg", "HS256",
+                    "--key", keyFile.toString(),
+                    "--batch",
+                    "--threads", "4",
+                    payloadFile.toString()
+            });
+
+            assertThat(exit).isEqualTo(0);
+        } finally {
+            System.setOut(standardOut);
+        }
+
+        // Logback may print its status on the first logger creation. Skip it.
+        String[] tokens = captor.toString().lines()
+                .filter(line -> line.matches("[\\w-]+\\.[\\w-]+\\.[\\w-]+"))
+                .toArray(String[]::new);
+        assertThat(tokens).hasSize(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(Decoder.decode(tokens[i]).getSubject()).isEqualTo(String.valueOf(i));
+        }
+    }
+
+    @Test
+    void generateWithHS256(@TempDir Path tmpDir) throws IOException, URISyntaxException {
+        Path payloadFile = tmpDir.resolve("claims.json");
+        Files.writeString(payloadFile, "{\"iss\":\"load-test\"}");
+
+        Path keyFile = Paths.get(Resources.getResource("secret-hs256.bin").toURI());
+
+        ByteArrayOutputStream captor = new ByteArrayOutputStream();
+        PrintStream standardOut = System.out;
+        try {
+            System.setOut(new PrintStream(captor));
+
+            int exit = Application.execute(new String[]{
+                    "generate",
+                    "--alg", "HS256",
+                    "--key", keyFile.toString(),
+                    "--payload", payloadFile.toString(),
+                    "--count", "20",
+                    "--jti", "SEQUENTIAL",
+                    "--threads", "2"
+            });
+
+            assertThat(exit).isEqualTo(0);
+        } finally {
+            System.setOut(standardOut);
+        }
+
+        // Logback may print its status on the first logger creation. Skip it.
+        String[] tokens = captor.toString().lines()
+                .filter(line -> line.matches("[\\w-]+\\.[\\w-]+\\.[\\w-]+"))
+                .toArray(String[]::new);
+        assertThat(tokens).hasSize(20);
+        for (int i = 0; i < 20; i++) {
+            assertThat(Decoder.decode(tokens[i]).getId()).isEqualTo(String.valueOf(i));
+            assertThat(Decoder.decode(tokens[i]).getIssuer()).isEqualTo("load-test");
+        }
+    }
+
+    @Test
+    void generateRequiresCountOrDuration() {
+        assertThat(Application.execute(new String[]{"generate"})).isEqualTo(picocli.CommandLine.ExitCode.USAGE);
+        assertThat(Application.execute(new String[]{"generate", "--count", "1", "--subjects", "0"})).isEqualTo(picocli.CommandLine.ExitCode.USAGE);
+        assertThat(Application.execute(new String[]{"generate", "--count", "1", "--rate", "-1"})).isEqualTo(picocli.CommandLine.ExitCode.USAGE);
+        assertThat(Application.execute(new String[]{"generate", "--count", "1", "--rate", "NaN"})).isEqualTo(picocli.CommandLine.ExitCode.USAGE);
+    }
+
+    @Test
+    void serveRequiresAlgAndSigningKeyTogether(@TempDir Path tmpDir) {
+        String socket = tmpDir.resolve("jwt-util.sock").toString();
+        assertThat(Application.execute(new String[]{"serve", "--socket", socket, "--alg", "HS256"})).isEqualTo(picocli.CommandLine.ExitCode.USAGE);
+        assertThat(Application.execute(new String[]{"serve", "--socket", socket, "--signing-key", "secret.bin"})).isEqualTo(picocli.CommandLine.ExitCode.USAGE);
+        assertThat(tmpDir.resolve("jwt-util.sock")).doesNotExist();
+    }
+
+    @Test
+    void generateReportsMissingKey(@TempDir Path tmpDir) {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        PrintStream standardErr = System.err;
+        int exit;
+        try {
+            System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+            exit = Application.execute(new String[]{"generate", "--alg", "HS256", "--key", tmpDir.resolve("missing.bin").toString(), "--count", "1"});
+        } finally {
+            System.setErr(standardErr);
+        }
+
+        assertThat(exit).isEqualTo(1);
+        // A message, not a stack trace.
+        assertThat(err.toString(StandardCharsets.UTF_8)).contains("missing.bin").doesNotContain("\tat ");
+    }
+
+    @Test
+    void generateStopsWhenOutputIsClosed() {
+        // Like a pipe closed by "| head".
+        OutputStream closedPipe = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        PrintStream standardOut = System.out;
+        long start = System.nanoTime();
+        int exit;
+        try {
+            System.setOut(new PrintStream(closedPipe));
+            exit = Application.execute(new String[]{"generate", "--duration", "600"});
+        } finally {
+            System.setOut(standardOut);
+        }
+
+        assertThat(exit).isEqualTo(1);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(60));
+    }
+
     @Test
     void decodeWithHS256(@TempDir Path tmpDir) throws IOException, URISyntaxException {
         decodeAndTest(tmpDir, JWT_HS256);
@@ -120,7 +268,79 @@ class ApplicationTest {
         assertThat(exitCodeAndOutput.getOutput()).startsWith(VerifyCommand.MSG_INVALID);
     }
 
-    ExitCodeAndOutput verifyAndTest(Path tmpDir, String jwt, byte[] keyOrSecret) throws IOException {
+    @Test
+    void verifyRejectsAlgNone(@TempDir Path tmpDir) throws IOException {
+        ExitCodeAndOutput exitCodeAndOutput = verifyAndTest(tmpDir, JWT_NONE, SECRET_HS256.getBytes());
+        assertThat(exitCodeAndOutput.getExitCode()).isEqualTo(1);
+        assertThat(exitCodeAndOutput.getOutput()).startsWith(VerifyCommand.MSG_INVALID);
+    }
+
+    @Test
+    void verifyBatchWithHS256(@TempDir Path tmpDir) throws IOException {
+        String jwts = String.join("\n", JWT_HS256, JWT_HS256 + "x", "", JWT_HS256, "not-a-jwt") + "\n";
+
+        ExitCodeAndOutput exitCodeAndOutput = verifyAndTest(tmpDir, jwts, SECRET_HS256.getBytes(), "--batch", "--threads", "2");
+        assertThat(exitCodeAndOutput.getExitCode()).isEqualTo(1);
+
+        String[] lines = exitCodeAndOutput.getOutput().split(System.lineSeparator());
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).isEqualTo(VerifyCommand.MSG_VALID);
+        assertThat(lines[1]).startsWith(VerifyCommand.MSG_INVALID);
+        assertThat(lines[2]).isEqualTo(VerifyCommand.MSG_VALID);
+        assertThat(lines[3]).startsWith(VerifyCommand.MSG_INVALID);
+    }
+
+    @Test
+    void verifyBatchWithHS256AllValid(@TempDir Path tmpDir) throws IOException {
+        String jwts = (JWT_HS256 + "\n").repeat(100);
+
+        ExitCodeAndOutput exitCodeAndOutput = verifyAndTest(tmpDir, jwts, SECRET_HS256.getBytes(), "--batch");
+        assertThat(exitCodeAndOutput.getExitCode()).isEqualTo(0);
+        assertThat(exitCodeAndOutput.getOutput()).isEqualTo((VerifyCommand.MSG_VALID + System.lineSeparator()).repeat(100));
+    }
+
+    @Test
+    void verifyBatchRejectsAlgNone(@TempDir Path tmpDir) throws IOException, URISyntaxException {
+        byte[] publicKey = Files.readAllBytes(Paths.get(Resources.getResource("rsa-public.pem").toURI()));
+
+        ExitCodeAndOutput exitCodeAndOutput = verifyAndTest(tmpDir, JWT_NONE + "\n", publicKey, "--batch");
+        assertThat(exitCodeAndOutput.getExitCode()).isEqualTo(1);
+        assertThat(exitCodeAndOutput.getOutput()).startsWith(VerifyCommand.MSG_INVALID);
+    }
+
+    @Test
+    void verifyBatchWithEmptySecret(@TempDir Path tmpDir) throws IOException {
+        String jwts = (JWT_HS256 + "\n").repeat(2);
+
+        ExitCodeAndOutput exitCodeAndOutput = verifyAndTest(tmpDir, jwts, new byte[0], "--batch");
+        assertThat(exitCodeAndOutput.getExitCode()).isEqualTo(1);
+
+        String[] lines = exitCodeAndOutput.getOutput().split(System.lineSeparator());
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith(VerifyCommand.MSG_INVALID);
+        assertThat(lines[1]).startsWith(VerifyCommand.MSG_INVALID);
+    }
+
+    @Test
+    void verifyBatchWithDeniedJti(@TempDir Path tmpDir) throws IOException {
+        Algorithm algorithm = Algorithm.HMAC256(SECRET_HS256);
+        String revoked = Encoder.encode(Optional.empty(), "{\"jti\":\"revoked\"}", algorithm);
+        String valid = Encoder.encode(Optional.empty(), "{\"jti\":\"valid\"}", algorithm);
+
+        Path denylist = tmpDir.resolve("denylist");
+        Files.writeString(denylist, "revoked\n");
+
+        ExitCodeAndOutput exitCodeAndOutput = verifyAndTest(tmpDir, revoked + "\n" + valid + "\n", SECRET_HS256.getBytes(),
+                "--batch", "--deny-jti", denylist.toString());
+        assertThat(exitCodeAndOutput.getExitCode()).isEqualTo(1);
+
+        String[] lines = exitCodeAndOutput.getOutput().split(System.lineSeparator());
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith(VerifyCommand.MSG_INVALID);
+        assertThat(lines[1]).isEqualTo(VerifyCommand.MSG_VALID);
+    }
+
+    ExitCodeAndOutput verifyAndTest(Path tmpDir, String jwt, byte[] keyOrSecret, String... options) throws IOException {
         Path jwtFile = tmpDir.resolve("jwt");
         Files.writeString(jwtFile, jwt);
 
@@ -135,11 +355,11 @@ class ApplicationTest {
         try {
             System.setOut(new PrintStream(captor));
 
-            exit = Application.execute(new String[]{
-                    "verify",
-                    "--key", keyOrSecretFile.toString(),
-                    jwtFile.toString()
-            });
+            List<String> args = new ArrayList<>(List.of("verify", "--key", keyOrSecretFile.toString()));
+            args.addAll(List.of(options));
+            args.add(jwtFile.toString());
+
+            exit = Application.execute(args.toArray(new String[0]));
         } finally {
             System.setOut(standardOut);
         }
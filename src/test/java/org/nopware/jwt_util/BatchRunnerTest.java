@@ -0,0 +1,141 @@
+package org.nopware.jwt_util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchRunnerTest {
+
+    @Test
+    void runKeepsInputOrder() {
+        int count = BatchRunner.WINDOW_PER_THREAD * 4 * 3 + 1; // More than the window.
+        List<Integer> results = new ArrayList<>();
+
+        BatchRunner.run(IntStream.range(0, count).iterator(), i -> {
+            if (i % 7 == 0) {
+                Thread.yield();
+            }
+            return i * 2;
+        }, results::add, 4);
+
+        assertThat(results).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(results.get(i)).isEqualTo(i * 2);
+        }
+    }
+
+    @Test
+    void runPropagatesException() {
+        List<Integer> results = new ArrayList<>();
+
+        assertThatThrownBy(() -> BatchRunner.run(IntStream.range(0, 10).iterator(), i -> {
+            if (i == 5) {
+                throw new IllegalStateException("failed at " + i);
+            }
+            return i;
+        }, results::add, 2))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("failed at 5");
+        assertThat(results).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void runPropagatesExceptionFromInputs() {
+        Iterator<Integer> inputs = new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (next == 3) {
+                    throw new UncheckedIOException(new IOException("read failed"));
+                }
+                return next++;
+            }
+        };
+        List<Integer> results = new ArrayList<>();
+
+        assertThatThrownBy(() -> BatchRunner.run(inputs, i -> i, results::add, 2))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(results).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    @Timeout(10)
+    void runPropagatesErrorFromInputs() {
+        Iterator<Integer> inputs = new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (next == 3) {
+                    throw new OutOfMemoryError("read failed");
+                }
+                return next++;
+            }
+        };
+        List<Integer> results = new ArrayList<>();
+
+        assertThatThrownBy(() -> BatchRunner.run(inputs, i -> i, results::add, 2))
+                .isInstanceOf(OutOfMemoryError.class);
+        assertThat(results).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    @Timeout(10)
+    void runPropagatesErrorFromTask() {
+        assertThatThrownBy(() -> BatchRunner.run(IntStream.range(0, 10).iterator(), i -> {
+            if (i == 5) {
+                throw new AssertionError("failed at " + i);
+            }
+            return i;
+        }, i -> {}, 2))
+                .isInstanceOf(AssertionError.class)
+                .hasMessage("failed at 5");
+    }
+
+    @Test
+    void slowSinkBoundsInputsInFlight() {
+        int threads = 2;
+        int window = threads * BatchRunner.WINDOW_PER_THREAD;
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Iterator<Integer> inputs = IntStream.range(0, window * 4)
+                .peek(i -> read.incrementAndGet())
+                .iterator();
+        int[] written = {0};
+
+        BatchRunner.run(inputs, i -> i, i -> {
+            written[0]++;
+            maxInFlight.accumulateAndGet(read.get() - written[0], Math::max);
+            if (i % 64 == 0) {
+                // A slow consumer.
+                LockSupport.parkNanos(1_000_000);
+            }
+        }, threads);
+
+        assertThat(written[0]).isEqualTo(window * 4);
+        // The writer's queue, the job being read and the job being written.
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(window + 2);
+    }
+}
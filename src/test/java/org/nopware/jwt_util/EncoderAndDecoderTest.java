@@ -1,6 +1,8 @@
 package org.nopware.jwt_util;
 
+import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
@@ -13,6 +15,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -95,6 +98,86 @@ class EncoderAndDecoderTest {
         }
     }
 
+    @Test
+    void verifierIsCachedPerAlgorithmAndPolicy() {
+        Algorithm algorithm = Algorithm.HMAC256("secret");
+        ClaimPolicy withIssuer = ClaimPolicy.builder().issuer("issuer").build();
+
+        assertSame(Decoder.verifier(algorithm), Decoder.verifier(algorithm));
+        assertSame(Decoder.verifier(algorithm, withIssuer), Decoder.verifier(algorithm, ClaimPolicy.builder().issuer("issuer").build()));
+        assertNotSame(Decoder.verifier(algorithm), Decoder.verifier(algorithm, withIssuer));
+        assertNotSame(Decoder.verifier(algorithm), Decoder.verifier(Algorithm.HMAC256("secret")));
+    }
+
+    @Test
+    void verifierCacheIsBounded() {
+        for (int i = 0; i < Decoder.VERIFIER_CACHE_SIZE * 2; i++) {
+            Decoder.verifier(Algorithm.HMAC256("secret"));
+        }
+        assertTrue(Decoder.verifiers.size() <= Decoder.VERIFIER_CACHE_SIZE);
+    }
+
+    @Test
+    void verifyWithPolicy() {
+        Algorithm algorithm = Algorithm.HMAC256("secret");
+        String token = Encoder.encode(Optional.empty(), "{\"iss\":\"issuer\"}", algorithm);
+
+        assertNotNull(Decoder.verify(token, algorithm, ClaimPolicy.builder().issuer("issuer").build()));
+        assertNotNull(Decoder.verify(Decoder.decode(token), algorithm));
+        assertThrows(JWTVerificationException.class, () -> Decoder.verify(token, algorithm, ClaimPolicy.builder().issuer("other").build()));
+    }
+
+    @Test
+    void encodeReusesHeaderAndMatchesJWTCreator() {
+        Algorithm algorithm = Algorithm.HMAC256("secret");
+        Optional<String> headerJson = Optional.of("{\"kid\":\"key-1\"}");
+        String payloadJson = "{ \"sub\" : \"1234567890\",\n \"roles\": [\"a\", {\"b\": 1.5}], \"admin\": true }";
+
+        String first = Encoder.encode(headerJson, payloadJson, algorithm);
+        String second = Encoder.encode(headerJson, "{\"sub\":\"other\"}", algorithm);
+        assertEquals(first.substring(0, first.indexOf('.')), second.substring(0, second.indexOf('.')));
+        assertSame(Encoder.header(headerJson, algorithm), Encoder.header(Optional.of("{\"kid\":\"key-1\"}"), algorithm));
+
+        DecodedJWT actual = Decoder.verify(first, algorithm);
+        DecodedJWT expected = Decoder.decode(JWT.create().withHeader(headerJson.get()).withPayload(payloadJson).sign(algorithm));
+        assertEquals(expected.getHeaderClaim("kid").asString(), actual.getKeyId());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getAlgorithm(), actual.getAlgorithm());
+        assertEquals(expected.getClaims().keySet(), actual.getClaims().keySet());
+        assertEquals(expected.getClaim("roles").asList(Object.class), actual.getClaim("roles").asList(Object.class));
+
+        String audienceJson = "{\"aud\":[\"a\",\"b\"],\"big\":9223372036854775807}";
+        DecodedJWT audience = Decoder.verify(Encoder.encode(Optional.empty(), audienceJson, algorithm), algorithm);
+        assertEquals(Decoder.decode(JWT.create().withPayload(audienceJson).sign(algorithm)).getAudience(), audience.getAudience());
+        assertEquals(Long.MAX_VALUE, audience.getClaim("big").asLong());
+
+        // The payload is the same as by JWTCreator, e.g. the last of duplicates wins, and aud keeps only strings.
+        for (String json : List.of("{\"sub\":\"a\",\"sub\":\"b\"}", "{\"x\":{\"y\":1,\"y\":2}}",
+                "{\"aud\":123}", "{\"aud\":[\"a\",1]}", "{\"aud\":[\"a\"]}", "{\"aud\":[]}", "{\"aud\":\"a\",\"aud\":null}")) {
+            String token = Encoder.encode(Optional.empty(), json, algorithm);
+            String expectedToken = JWT.create().withPayload(json).sign(algorithm);
+            assertEquals(Decoder.decode(expectedToken).getPayload(), Decoder.decode(token).getPayload(), json);
+        }
+
+        // Both reject an integer which does not fit in a long.
+        String bigInteger = "{\"n\":[{\"m\":123456789012345678901234567890}]}";
+        assertThrows(IllegalArgumentException.class, () -> JWT.create().withPayload(bigInteger));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Encoder.encode(Optional.empty(), bigInteger, algorithm));
+        assertEquals(Encoder.EXMSG_UNSUPPORTED_CLAIM_VALUE, e.getMessage());
+    }
+
+    @Test
+    void encodeRejectsInvalidJson() {
+        Algorithm algorithm = Algorithm.HMAC256("secret");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Encoder.encode(Optional.empty(), "{\"sub\":", algorithm));
+        assertEquals(Encoder.EXMSG_INVALID_PAYLOAD_JSON, e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Encoder.encode(Optional.empty(), "[1]", algorithm));
+        assertThrows(IllegalArgumentException.class, () -> Encoder.encode(Optional.empty(), "{} {}", algorithm));
+        e = assertThrows(IllegalArgumentException.class, () -> Encoder.encode(Optional.of("{"), "{}", algorithm));
+        assertEquals(Encoder.EXMSG_INVALID_HEADER_JSON, e.getMessage());
+    }
+
     byte[] readPemObject(String pemFile) throws IOException {
         URL urlPem = Resources.getResource(pemFile);
         return KeyUtil.readPemObject(Resources.asCharSource(urlPem, Charsets.US_ASCII).read());
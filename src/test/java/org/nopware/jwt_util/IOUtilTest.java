@@ -8,11 +8,19 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class IOUtilTest {
 
@@ -27,6 +35,15 @@ class IOUtilTest {
         assertThat(result).isEqualTo(EXPECTED);
     }
 
+    @Test
+    void isMappable(@TempDir Path tmpDir) throws IOException {
+        assertThat(IOUtil.isMappable(Files.writeString(tmpDir.resolve("jwt"), "jwt"))).isTrue();
+        assertThat(IOUtil.isMappable(null)).isFalse();
+        assertThat(IOUtil.isMappable(tmpDir)).isFalse();
+        // A device reports the size 0, as pipes do.
+        assertThat(IOUtil.isMappable(Paths.get("/dev/null"))).isFalse();
+    }
+
     @Test
     void readAllBytesFromFileOrStdin() throws IOException {
         byte[] bytes = IOUtil.readAllBytesFromFileOrStdin(Paths.get("src/test/resources/rsa-private.pem"));
@@ -108,4 +125,81 @@ class IOUtilTest {
             assertThat(base64).isEqualTo(expected);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void base64UrlEncodeAndDecodeIntoBuffers() {
+        Random random = new Random(0);
+        for (int length = 0; length < 100; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String expected = Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+
+            // Encode at an offset into a larger buffer.
+            byte[] encoded = new byte[IOUtil.base64UrlEncodedLength(length) + 3];
+            int encodedLength = IOUtil.base64UrlEncode(data, 0, length, encoded, 3);
+            assertThat(encodedLength).isEqualTo(expected.length());
+            assertThat(new String(encoded, 3, encodedLength, StandardCharsets.US_ASCII)).isEqualTo(expected);
+
+            // Decode from bytes, from a string, and from a buffer.
+            byte[] decoded = new byte[IOUtil.base64UrlDecodedLength(encodedLength)];
+            assertThat(IOUtil.base64UrlDecode(encoded, 3, encodedLength, decoded, 0)).isEqualTo(length);
+            assertThat(decoded).isEqualTo(data);
+
+            decoded = new byte[length + 1];
+            assertThat(IOUtil.base64UrlDecode("." + expected + ".", 1, expected.length() + 1, decoded, 1)).isEqualTo(length);
+            assertThat(Arrays.copyOfRange(decoded, 1, length + 1)).isEqualTo(data);
+
+            ByteBuffer dst = ByteBuffer.allocateDirect(length);
+            assertThat(IOUtil.base64UrlDecode(ByteBuffer.wrap(expected.getBytes(StandardCharsets.US_ASCII)), dst)).isEqualTo(length);
+            byte[] fromBuffer = new byte[length];
+            dst.flip().get(fromBuffer);
+            assertThat(fromBuffer).isEqualTo(data);
+
+            ByteBuffer encodedBuffer = ByteBuffer.allocateDirect(IOUtil.base64UrlEncodedLength(length));
+            IOUtil.base64UrlEncode(ByteBuffer.wrap(data).asReadOnlyBuffer(), encodedBuffer);
+            assertThat(IOUtil.asciiString(encodedBuffer.flip())).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void base64UrlEncodeRejectsTooSmallBuffer() {
+        byte[] data = "foobar".getBytes(StandardCharsets.US_ASCII);
+        // The backing array has room, but the limit does not.
+        for (ByteBuffer dst : List.of(ByteBuffer.allocate(16).limit(7), ByteBuffer.allocateDirect(16).limit(7))) {
+            ByteBuffer src = ByteBuffer.wrap(data);
+            assertThatThrownBy(() -> IOUtil.base64UrlEncode(src, dst)).isInstanceOf(BufferOverflowException.class);
+            assertThat(src.position()).isEqualTo(0);
+            assertThat(dst.position()).isEqualTo(0);
+
+            dst.limit(8);
+            assertThat(IOUtil.base64UrlEncode(src, dst)).isEqualTo(8);
+            assertThat(IOUtil.asciiString(dst.flip())).isEqualTo("Zm9vYmFy");
+        }
+
+        assertThatThrownBy(() -> IOUtil.base64UrlDecode(ByteBuffer.wrap("Zm9vYmFy".getBytes(StandardCharsets.US_ASCII)), ByteBuffer.allocate(5)))
+                .isInstanceOf(BufferOverflowException.class);
+    }
+
+    @Test
+    void base64UrlDecodeWithPadding() {
+        for (String plain : BASE64_TEST_VECTORS.keySet()) {
+            byte[] base64 = BASE64_TEST_VECTORS.get(plain).getBytes(StandardCharsets.US_ASCII);
+            byte[] decoded = new byte[plain.length()];
+            int length = IOUtil.base64UrlDecode(base64, 0, base64.length, decoded, 0);
+            assertThat(new String(decoded, 0, length, StandardCharsets.US_ASCII)).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void base64UrlDecodeRejectsIllegalInput() {
+        byte[] dst = new byte[16];
+        assertThatThrownBy(() -> IOUtil.base64UrlDecode("Zm9v+g", 0, 6, dst, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(IOUtil.EXMSG_ILLEGAL_BASE64URL_CHARACTER + 4);
+        assertThatThrownBy(() -> IOUtil.base64UrlDecode("Zm9vY", 0, 5, dst, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(IOUtil.EXMSG_ILLEGAL_BASE64URL_LENGTH + 5);
+        assertThatThrownBy(() -> IOUtil.base64UrlDecode(new byte[]{'Z', 'm', (byte) 0xe3, 'v'}, 0, 4, dst, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JtiDenylistTest {
+
+    @Test
+    void contains() {
+        List<String> jtis = IntStream.range(0, 10_000).mapToObj(i -> "jti-" + i).toList();
+        JtiDenylist denylist = JtiDenylist.of(jtis);
+
+        assertThat(denylist.size()).isEqualTo(10_000);
+        assertThat(jtis).allMatch(denylist::contains);
+        assertThat(IntStream.range(10_000, 20_000).mapToObj(i -> "jti-" + i)).noneMatch(denylist::contains);
+        assertThat(JtiDenylist.of(List.of()).contains("jti-0")).isFalse();
+    }
+
+    @Test
+    void duplicatesAreCountedOnce() {
+        assertThat(JtiDenylist.of(List.of("a", "b", "a")).size()).isEqualTo(2);
+    }
+
+    @Test
+    void openTextAndCompiledFile(@TempDir Path tmpDir) throws IOException {
+        Path text = tmpDir.resolve("jtis.txt");
+        Files.writeString(text, "revoked-1\n  revoked-2 \r\n\nrevoked-3");
+
+        JtiDenylist fromText = JtiDenylist.open(text);
+        assertThat(fromText.size()).isEqualTo(3);
+        assertThat(fromText.contains("revoked-2")).isTrue();
+
+        Path compiled = tmpDir.resolve("jtis.bin");
+        fromText.write(compiled);
+        assertThat(Files.size(compiled)).isGreaterThan(JtiDenylist.MAGIC.length);
+
+        JtiDenylist mapped = JtiDenylist.open(compiled);
+        assertThat(mapped.size()).isEqualTo(3);
+        assertThat(mapped.contains("revoked-1")).isTrue();
+        assertThat(mapped.contains("revoked-3")).isTrue();
+        assertThat(mapped.contains("valid")).isFalse();
+    }
+
+    @Test
+    void openBrokenFile(@TempDir Path tmpDir) throws IOException {
+        Path compiled = tmpDir.resolve("jtis.bin");
+        JtiDenylist.of(List.of("a")).write(compiled);
+        byte[] bytes = Files.readAllBytes(compiled);
+        Files.write(compiled, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IOException.class, () -> JtiDenylist.open(compiled));
+    }
+
+    @Test
+    void openFileWithoutEmptySlot(@TempDir Path tmpDir) throws IOException {
+        // A valid header, but every slot is taken.
+        int capacity = 16;
+        ByteBuffer image = ByteBuffer.allocate(24 + capacity * Long.BYTES);
+        image.put(JtiDenylist.MAGIC).putLong(capacity).putLong(0);
+        while (image.hasRemaining()) {
+            image.putLong(42);
+        }
+        Path compiled = Files.write(tmpDir.resolve("jtis.bin"), image.array());
+
+        assertThat(JtiDenylist.open(compiled).contains("valid")).isFalse();
+    }
+
+    @Test
+    void writeReplacesMappedFile(@TempDir Path tmpDir) throws IOException {
+        Path compiled = tmpDir.resolve("jtis.bin");
+        JtiDenylist.of(IntStream.range(0, 1000).mapToObj(i -> "old-" + i).toList()).write(compiled);
+        JtiDenylist mapped = JtiDenylist.open(compiled);
+
+        JtiDenylist.of(List.of("new")).write(compiled);
+
+        // The previous mapping is still intact.
+        assertThat(mapped.contains("old-999")).isTrue();
+        assertThat(JtiDenylist.open(compiled).contains("new")).isTrue();
+        try (Stream<Path> files = Files.list(tmpDir)) {
+            assertThat(files).containsExactly(compiled);
+        }
+    }
+
+    @Test
+    void verifyRejectsDeniedJti() {
+        Algorithm algorithm = Algorithm.HMAC256("secret");
+        ClaimPolicy policy = ClaimPolicy.builder().jtiDenylist(JtiDenylist.of(List.of("revoked"))).build();
+
+        String revoked = Encoder.encode(Optional.empty(), "{\"jti\":\"revoked\"}", algorithm);
+        String valid = Encoder.encode(Optional.empty(), "{\"jti\":\"valid\"}", algorithm);
+        String withoutJti = Encoder.encode(Optional.empty(), "{\"sub\":\"1\"}", algorithm);
+
+        assertThrows(JWTVerificationException.class, () -> Decoder.verify(revoked, algorithm, policy));
+        assertThrows(JWTVerificationException.class, () -> Decoder.verify(Decoder.decode(revoked), algorithm, policy));
+        assertThat(Decoder.verify(valid, algorithm, policy).getId()).isEqualTo("valid");
+        assertThat(Decoder.verify(withoutJti, algorithm, policy).getId()).isNull();
+        assertThat(Decoder.verify(revoked, algorithm).getId()).isEqualTo("revoked");
+    }
+}
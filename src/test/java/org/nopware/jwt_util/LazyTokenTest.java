@@ -0,0 +1,50 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LazyTokenTest {
+    private static final Algorithm HS256 = Algorithm.HMAC256("secret");
+
+    @Test
+    void segments() {
+        String jwt = JWT.create().withKeyId("key-1").withSubject("test").sign(HS256);
+        LazyToken token = Decoder.decodeLazily(jwt);
+
+        assertThat(token.getHeader() + "." + token.getPayload() + "." + token.getSignature()).isEqualTo(jwt);
+        assertThat(token.getAlgorithm()).isEqualTo("HS256");
+        assertThat(token.getKeyId()).isEqualTo("key-1");
+        assertThat(token.getPayloadJson().get("sub").asText()).isEqualTo("test");
+        assertThat(token.getSignatureBytes()).isEqualTo(Base64.getUrlDecoder().decode(token.getSignature()));
+    }
+
+    @Test
+    void brokenPayloadIsNotDecodedUntilAccessed() {
+        String header = Base64.getUrlEncoder().withoutPadding().encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+        LazyToken token = Decoder.decodeLazily(header + ".!!!.");
+
+        assertThat(new String(token.getHeaderBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"alg\":\"none\"}");
+        assertThrows(JWTDecodeException.class, token::getPayloadBytes);
+    }
+
+    @Test
+    void notJson() {
+        String notJson = Base64.getUrlEncoder().withoutPadding().encodeToString("foo".getBytes(StandardCharsets.UTF_8));
+        LazyToken token = Decoder.decodeLazily(notJson + "." + notJson + ".");
+        assertThrows(JWTDecodeException.class, token::getHeaderJson);
+    }
+
+    @Test
+    void notThreeParts() {
+        assertThrows(JWTDecodeException.class, () -> Decoder.decodeLazily("a.b"));
+        assertThrows(JWTDecodeException.class, () -> Decoder.decodeLazily("a.b.c.d"));
+    }
+}
@@ -0,0 +1,96 @@
+package org.nopware.jwt_util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedTokenReaderTest {
+
+    private static List<String> readAll(Path path, long regionSize) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (MappedTokenReader reader = new MappedTokenReader(path, regionSize)) {
+            while (reader.hasNext()) {
+                ByteBuffer token = reader.next();
+                tokens.add(IOUtil.asciiString(token));
+            }
+        }
+        return tokens;
+    }
+
+    @Test
+    void readsLines(@TempDir Path tmpDir) throws IOException {
+        Path file = tmpDir.resolve("jwts");
+        Files.writeString(file, "aaa.bbb.ccc\r\n\n  ddd.eee.fff  \n\n\tggg.hhh.\n");
+
+        assertThat(readAll(file, MappedTokenReader.DEFAULT_REGION_SIZE))
+                .containsExactly("aaa.bbb.ccc", "ddd.eee.fff", "ggg.hhh.");
+    }
+
+    @Test
+    void readsLastLineWithoutNewline(@TempDir Path tmpDir) throws IOException {
+        Path file = tmpDir.resolve("jwts");
+        Files.writeString(file, "aaa.bbb.ccc\nddd.eee.fff");
+
+        assertThat(readAll(file, MappedTokenReader.DEFAULT_REGION_SIZE))
+                .containsExactly("aaa.bbb.ccc", "ddd.eee.fff");
+    }
+
+    @Test
+    void readsEmptyFile(@TempDir Path tmpDir) throws IOException {
+        Path file = tmpDir.resolve("jwts");
+        Files.writeString(file, "");
+
+        assertThat(readAll(file, MappedTokenReader.DEFAULT_REGION_SIZE)).isEmpty();
+    }
+
+    @Test
+    void readsLinesAcrossRegions(@TempDir Path tmpDir) throws IOException {
+        List<String> expected = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            String token = "header" + i + ".payload" + "x".repeat(i % 17) + ".signature" + i;
+            expected.add(token);
+            content.append(token).append('\n');
+        }
+        Path file = tmpDir.resolve("jwts");
+        Files.writeString(file, content);
+
+        // Lines cross the boundaries of small regions.
+        assertThat(readAll(file, 64)).isEqualTo(expected);
+        assertThat(readAll(file, 100)).isEqualTo(expected);
+    }
+
+    @Test
+    void slicesStayValidAfterRemapping(@TempDir Path tmpDir) throws IOException {
+        Path file = tmpDir.resolve("jwts");
+        Files.writeString(file, "aaa.bbb.ccc\n".repeat(100));
+
+        List<ByteBuffer> tokens = new ArrayList<>();
+        try (MappedTokenReader reader = new MappedTokenReader(file, 32)) {
+            reader.forEachRemaining(tokens::add);
+        }
+
+        assertThat(tokens).hasSize(100);
+        assertThat(tokens).allSatisfy(token -> assertThat(IOUtil.asciiString(token)).isEqualTo("aaa.bbb.ccc"));
+    }
+
+    @Test
+    void failsOnLineLongerThanRegion(@TempDir Path tmpDir) throws IOException {
+        Path file = tmpDir.resolve("jwts");
+        Files.writeString(file, "a".repeat(100) + "\n");
+
+        assertThatThrownBy(() -> readAll(file, 64))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining(MappedTokenReader.EXMSG_LINE_TOO_LONG);
+    }
+}
@@ -0,0 +1,88 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonTokenWriterTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static String base64Url(String s) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write() throws IOException {
+        String compact = JWT.create().withSubject("compact").sign(Algorithm.HMAC256("secret"));
+        // A header with line breaks must not break the lines.
+        String multiLine = base64Url("{\n  \"alg\": \"none\"\n}") + "." + base64Url("{\"sub\":\"multi\"}") + ".";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NdjsonTokenWriter writer = new NdjsonTokenWriter(out)) {
+            assertThat(writer.write(compact)).isTrue();
+            assertThat(writer.write(multiLine)).isTrue();
+            assertThat(writer.write("not-a-token")).isFalse();
+        }
+
+        String output = out.toString(StandardCharsets.UTF_8);
+        assertThat(output).endsWith("\n");
+        List<String> lines = output.lines().toList();
+        assertThat(lines).hasSize(3);
+
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("header").get("alg").asText()).isEqualTo("HS256");
+        assertThat(first.get("payload").get("sub").asText()).isEqualTo("compact");
+        assertThat(first.get("signature").asText()).isEqualTo(compact.substring(compact.lastIndexOf('.') + 1));
+
+        JsonNode second = objectMapper.readTree(lines.get(1));
+        assertThat(second.get("header").get("alg").asText()).isEqualTo("none");
+        assertThat(second.get("payload").get("sub").asText()).isEqualTo("multi");
+        assertThat(second.get("signature").asText()).isEmpty();
+
+        assertThat(objectMapper.readTree(lines.get(2)).has("error")).isTrue();
+    }
+
+    @Test
+    void writeMalformedSegments() throws IOException {
+        String header = base64Url("{\"alg\":\"none\"}");
+        // A payload which would add a field to the line if embedded as is.
+        String injecting = header + "." + base64Url("{\"sub\":\"a\"},\"injected\":{\"x\":1}") + ".";
+        String invalidMultiLine = header + "." + base64Url("{\n  \"sub\":\n") + ".";
+        String notAnObject = header + "." + base64Url("[1, 2]") + ".";
+        String valid = header + "." + base64Url("{\"sub\":\"valid\"}") + ".";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NdjsonTokenWriter writer = new NdjsonTokenWriter(out)) {
+            assertThat(writer.write(injecting)).isFalse();
+            assertThat(writer.write(invalidMultiLine)).isFalse();
+            assertThat(writer.write(notAnObject)).isFalse();
+            assertThat(writer.write(valid)).isTrue();
+        }
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(4);
+        for (String line : lines.subList(0, 3)) {
+            JsonNode error = objectMapper.readTree(line);
+            assertThat(error.has("error")).isTrue();
+            assertThat(error.has("injected")).isFalse();
+        }
+        assertThat(objectMapper.readTree(lines.get(3)).get("payload").get("sub").asText()).isEqualTo("valid");
+    }
+
+    @Test
+    void writeNothing() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new NdjsonTokenWriter(out).close();
+        assertThat(out.size()).isZero();
+    }
+}
@@ -0,0 +1,183 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.google.common.io.Resources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReloadingAlgorithmResolverTest {
+    private static final byte[] OLD_SECRET = "old-secret-old-secret-old-secret".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEW_SECRET = "new-secret-new-secret-new-secret".getBytes(StandardCharsets.US_ASCII);
+
+    private static ReloadingAlgorithmResolver newResolver(Path keyFile) throws Exception {
+        return new ReloadingAlgorithmResolver(keyFile, KeyFileAlgorithmResolver::new);
+    }
+
+    private static void verify(AlgorithmResolver resolver, String jwt) throws Exception {
+        Decoder.verify(jwt, resolver.resolve(Decoder.decode(jwt)));
+    }
+
+    private static void awaitGeneration(ReloadingAlgorithmResolver resolver, long generation) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (resolver.generation() < generation && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void reloadsModifiedFile(@TempDir Path tmpDir) throws Exception {
+        Path keyFile = tmpDir.resolve("secret.bin");
+        Files.write(keyFile, OLD_SECRET);
+
+        String oldJwt = JWT.create().sign(Algorithm.HMAC256(OLD_SECRET));
+        String newJwt = JWT.create().sign(Algorithm.HMAC256(NEW_SECRET));
+
+        try (ReloadingAlgorithmResolver resolver = newResolver(keyFile)) {
+            verify(resolver, oldJwt);
+
+            Files.write(keyFile, NEW_SECRET);
+            awaitGeneration(resolver, 1);
+
+            assertThat(resolver.generation()).isEqualTo(1);
+            verify(resolver, newJwt);
+            assertThrows(JWTVerificationException.class, () -> verify(resolver, oldJwt));
+        }
+    }
+
+    @Test
+    void reloadsReplacedFile(@TempDir Path tmpDir) throws Exception {
+        Path keyFile = tmpDir.resolve("secret.bin");
+        Files.write(keyFile, OLD_SECRET);
+
+        try (ReloadingAlgorithmResolver resolver = newResolver(keyFile)) {
+            Path newKeyFile = Files.write(tmpDir.resolve("secret.bin.tmp"), NEW_SECRET);
+            Files.move(newKeyFile, keyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            awaitGeneration(resolver, 1);
+
+            verify(resolver, JWT.create().sign(Algorithm.HMAC256(NEW_SECRET)));
+        }
+    }
+
+    @Test
+    void invalidatesCacheOnReload(@TempDir Path tmpDir) throws Exception {
+        Path keyFile = tmpDir.resolve("secret.bin");
+        Files.write(keyFile, OLD_SECRET);
+
+        String oldJwt = JWT.create().sign(Algorithm.HMAC256(OLD_SECRET));
+        VerificationCache verificationCache = new VerificationCache(10, Duration.ofMinutes(1));
+
+        try (ReloadingAlgorithmResolver resolver = newResolver(keyFile)) {
+            resolver.addReloadListener(verificationCache::invalidateAll);
+            verificationCache.putValid(oldJwt, Decoder.verify(oldJwt, resolver.resolve(Decoder.decode(oldJwt))));
+            assertThat(verificationCache.isValid(oldJwt)).isTrue();
+
+            Files.write(keyFile, NEW_SECRET);
+            awaitGeneration(resolver, 1);
+
+            assertThat(resolver.generation()).isEqualTo(1);
+            assertThat(verificationCache.isValid(oldJwt)).isFalse();
+        }
+    }
+
+    @Test
+    void dropsVerdictOfRotatedKey(@TempDir Path tmpDir) throws Exception {
+        Path keyFile = tmpDir.resolve("secret.bin");
+        Files.write(keyFile, OLD_SECRET);
+
+        String oldJwt = JWT.create().sign(Algorithm.HMAC256(OLD_SECRET));
+        VerificationCache verificationCache = new VerificationCache(10, Duration.ofMinutes(1));
+
+        try (ReloadingAlgorithmResolver resolver = newResolver(keyFile)) {
+            resolver.addReloadListener(verificationCache::invalidateAll);
+            long generation = verificationCache.generation();
+            Algorithm algorithm = resolver.resolve(Decoder.decode(oldJwt));
+
+            // The key is rotated while the token is being verified with the old key.
+            Files.write(keyFile, NEW_SECRET);
+            awaitGeneration(resolver, 1);
+            assertThat(resolver.generation()).isEqualTo(1);
+
+            verificationCache.putValid(oldJwt, Decoder.verify(oldJwt, algorithm), generation);
+            assertThat(verificationCache.isValid(oldJwt)).isFalse();
+            assertThat(verificationCache.size()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    void keepsPreviousOnFailure(@TempDir Path tmpDir) throws Exception {
+        Path keyFile = tmpDir.resolve("rsa-public.pem");
+        Files.write(keyFile, "not a key".getBytes(StandardCharsets.US_ASCII));
+
+        ReloadingAlgorithmResolver.Loader failing = content -> {
+            if (new String(content, StandardCharsets.US_ASCII).startsWith("broken")) {
+                throw new InvalidKeySpecException("broken");
+            }
+            return new KeyFileAlgorithmResolver(content);
+        };
+
+        String jwt = JWT.create().sign(Algorithm.HMAC256("not a key"));
+        try (ReloadingAlgorithmResolver resolver = new ReloadingAlgorithmResolver(keyFile, failing)) {
+            Files.write(keyFile, "broken".getBytes(StandardCharsets.US_ASCII));
+            Thread.sleep(ReloadingAlgorithmResolver.QUIET_PERIOD_MILLIS * 5);
+
+            assertThat(resolver.generation()).isEqualTo(0);
+            verify(resolver, jwt);
+        }
+    }
+
+    @Test
+    void keepsPreviousKeyOnCorruptPem(@TempDir Path tmpDir) throws Exception {
+        Path keyFile = tmpDir.resolve("rsa-public.pem");
+        Files.copy(Paths.get(Resources.getResource("rsa-public.pem").toURI()), keyFile);
+
+        byte[] privateKey = KeyUtil.readPemObject(Resources.getResource("rsa-private.pem").openStream());
+        String jwt = JWT.create().sign(Algorithms.forSigning(Alg.RS256, privateKey));
+
+        try (ReloadingAlgorithmResolver resolver = new ReloadingAlgorithmResolver(keyFile, KeyFileAlgorithmResolver.preloadingLoader())) {
+            verify(resolver, jwt);
+
+            // A PEM file which fits no algorithm.
+            Files.writeString(keyFile, "-----BEGIN PUBLIC KEY-----\nYnJva2Vu\n-----END PUBLIC KEY-----\n");
+            Thread.sleep(ReloadingAlgorithmResolver.QUIET_PERIOD_MILLIS * 5);
+            assertThat(resolver.generation()).isEqualTo(0);
+            verify(resolver, jwt);
+
+            // Not PEM at all. It fits HMAC, but the previous key is an RSA key.
+            Files.writeString(keyFile, "broken");
+            Thread.sleep(ReloadingAlgorithmResolver.QUIET_PERIOD_MILLIS * 5);
+            assertThat(resolver.generation()).isEqualTo(0);
+            verify(resolver, jwt);
+        }
+    }
+
+    @Test
+    void reloadsOnSymbolicLinkSwap(@TempDir Path tmpDir) throws Exception {
+        // The layout of a Kubernetes secret volume: secret.bin -> ..data/secret.bin, ..data -> ..v1
+        Files.write(Files.createDirectory(tmpDir.resolve("..v1")).resolve("secret.bin"), OLD_SECRET);
+        Files.createSymbolicLink(tmpDir.resolve("..data"), Paths.get("..v1"));
+        Path keyFile = Files.createSymbolicLink(tmpDir.resolve("secret.bin"), Paths.get("..data", "secret.bin"));
+
+        try (ReloadingAlgorithmResolver resolver = newResolver(keyFile)) {
+            Files.write(Files.createDirectory(tmpDir.resolve("..v2")).resolve("secret.bin"), NEW_SECRET);
+            Path link = Files.createSymbolicLink(tmpDir.resolve("..data_tmp"), Paths.get("..v2"));
+            Files.move(link, tmpDir.resolve("..data"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            awaitGeneration(resolver, 1);
+
+            assertThat(resolver.generation()).isEqualTo(1);
+            verify(resolver, JWT.create().sign(Algorithm.HMAC256(NEW_SECRET)));
+        }
+    }
+}
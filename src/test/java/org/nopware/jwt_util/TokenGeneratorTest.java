@@ -0,0 +1,87 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenGeneratorTest {
+
+    private final Algorithm algorithm = Algorithm.HMAC256("secret");
+
+    private final TokenTemplate template = new TokenTemplate(Optional.empty(), "{\"iss\":\"load-test\"}", algorithm);
+
+    @Test
+    void sequentialClaimsInOrder() {
+        TokenGenerator generator = TokenGenerator.builder()
+                .template(template)
+                .count(100)
+                .threads(4)
+                .jwtId(TokenGenerator.Mode.SEQUENTIAL)
+                .subject(TokenGenerator.Mode.SEQUENTIAL)
+                .subjects(10)
+                .ttl(60)
+                .build();
+
+        List<String> tokens = new ArrayList<>();
+        TokenGenerator.Result result = generator.run(tokens::add);
+
+        assertThat(result.getCount()).isEqualTo(100);
+        assertThat(tokens).hasSize(100);
+        for (int i = 0; i < tokens.size(); i++) {
+            DecodedJWT decodedJWT = Decoder.verify(tokens.get(i), algorithm);
+            assertThat(decodedJWT.getIssuer()).isEqualTo("load-test");
+            assertThat(decodedJWT.getId()).isEqualTo(String.valueOf(i));
+            assertThat(decodedJWT.getSubject()).isEqualTo(TokenGenerator.SUBJECT_PREFIX + i % 10);
+            assertThat(decodedJWT.getClaim("exp").asLong() - decodedJWT.getClaim("iat").asLong()).isEqualTo(60);
+        }
+    }
+
+    @Test
+    void randomClaims() {
+        TokenGenerator generator = TokenGenerator.builder()
+                .template(template)
+                .count(200)
+                .jwtId(TokenGenerator.Mode.RANDOM)
+                .subject(TokenGenerator.Mode.NONE)
+                .issuedAtSpread(600)
+                .build();
+
+        Set<String> jwtIds = new HashSet<>();
+        long now = System.currentTimeMillis() / 1000;
+        generator.run(token -> {
+            DecodedJWT decodedJWT = Decoder.decode(token);
+            jwtIds.add(decodedJWT.getId());
+            assertThat(decodedJWT.getSubject()).isNull();
+            assertThat(decodedJWT.getClaim("iat").asLong()).isBetween(now - 601, now + 1);
+        });
+
+        assertThat(jwtIds).hasSize(200);
+        assertThat(jwtIds).allMatch(id -> id.matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"));
+    }
+
+    @Test
+    void durationAndRate() {
+        TokenGenerator generator = TokenGenerator.builder()
+                .template(template)
+                .duration(Duration.ofMillis(500))
+                .rate(100)
+                .build();
+
+        TokenGenerator.Result result = generator.run(token -> {
+        });
+
+        // About 50 tokens. The first permit of a rate limiter is immediate.
+        assertThat(result.getCount()).isBetween(20L, 80L);
+        assertThat(result.getElapsed()).isGreaterThanOrEqualTo(Duration.ofMillis(400));
+        assertThat(result.tokensPerSecond()).isBetween(40.0, 160.0);
+    }
+}
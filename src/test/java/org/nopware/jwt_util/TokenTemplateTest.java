@@ -0,0 +1,114 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.io.Resources;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenTemplateTest {
+
+    // Far enough in the future not to expire.
+    private static final long EXPIRES_AT = 4102444800L;
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = Resources.getResource(name).openStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static byte[] readPemObject(String name) throws IOException {
+        try (InputStream inputStream = Resources.getResource(name).openStream()) {
+            return KeyUtil.readPemObject(inputStream);
+        }
+    }
+
+    @Test
+    void encodeSplicesVariableClaims() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        byte[] secret = readResource("secret-hs256.bin");
+        TokenTemplate template = new TokenTemplate(Optional.of("{\"kid\":\"key-1\"}"), "{\"iss\":\"me\",\"scope\":[\"a\",\"b\"]}",
+                Algorithms.forSigning(Alg.HS256, secret));
+
+        String token = template.encode(1700000000L, EXPIRES_AT, "id-1", "user \"1\" é");
+
+        DecodedJWT decodedJWT = Decoder.verify(token, Algorithms.forVerifying(Alg.HS256, secret));
+        assertThat(decodedJWT.getAlgorithm()).isEqualTo("HS256");
+        assertThat(decodedJWT.getType()).isEqualTo("JWT");
+        assertThat(decodedJWT.getKeyId()).isEqualTo("key-1");
+        assertThat(decodedJWT.getIssuer()).isEqualTo("me");
+        assertThat(decodedJWT.getClaim("scope").asList(String.class)).containsExactly("a", "b");
+        assertThat(decodedJWT.getClaim("iat").asLong()).isEqualTo(1700000000L);
+        assertThat(decodedJWT.getClaim("exp").asLong()).isEqualTo(EXPIRES_AT);
+        assertThat(decodedJWT.getId()).isEqualTo("id-1");
+        assertThat(decodedJWT.getSubject()).isEqualTo("user \"1\" é");
+    }
+
+    @Test
+    void readsFixedClaimsAsEncoder() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        Algorithm algorithm = Algorithms.forSigning(Alg.HS256, KeyUtil.random(32));
+        TokenTemplate template = new TokenTemplate(Optional.empty(), "{\"iss\":\"a\",\"iss\":\"b\",\"aud\":[\"x\",1],\"azp\":1}", algorithm);
+
+        DecodedJWT decodedJWT = Decoder.decode(template.encode(1L, EXPIRES_AT, null, null));
+        assertThat(decodedJWT.getIssuer()).isEqualTo("b");
+        assertThat(decodedJWT.getClaim("aud").asString()).isEqualTo("x");
+
+        template = new TokenTemplate(Optional.empty(), "{\"aud\":1}", algorithm);
+        assertThat(Decoder.decode(template.encode(1L, EXPIRES_AT, null, null)).getClaims()).containsOnlyKeys("iat", "exp");
+    }
+
+    @Test
+    void encodeOmitsNullClaims() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        // The fixed claims are empty, and the payload starts with the variable claims.
+        Algorithm algorithm = Algorithms.forSigning(Alg.HS256, KeyUtil.random(32));
+        TokenTemplate template = new TokenTemplate(Optional.empty(), "{}", algorithm);
+
+        DecodedJWT decodedJWT = Decoder.decode(template.encode(-1L, 0L, null, null));
+        assertThat(decodedJWT.getClaims()).containsOnlyKeys("iat", "exp");
+        assertThat(decodedJWT.getClaim("iat").asLong()).isEqualTo(-1L);
+        assertThat(decodedJWT.getClaim("exp").asLong()).isEqualTo(0L);
+    }
+
+    @Test
+    void encodePadsFixedClaimsOfAnyLength() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        Algorithm algorithm = Algorithms.forSigning(Alg.HS256, KeyUtil.random(32));
+        for (String issuer : new String[]{"a", "ab", "abc"}) {
+            TokenTemplate template = new TokenTemplate(Optional.empty(), "{\"iss\":\"" + issuer + "\"}", algorithm);
+            DecodedJWT decodedJWT = Decoder.verify(template.encode(1L, EXPIRES_AT, "j", "s"), algorithm);
+            assertThat(decodedJWT.getIssuer()).isEqualTo(issuer);
+            assertThat(decodedJWT.getSubject()).isEqualTo("s");
+        }
+    }
+
+    @Test
+    void encodeWithRsaAndEcdsa() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        testSignature(Alg.RS256, "rsa-private.pem", "rsa-public.pem");
+        testSignature(Alg.ES256, "ec256-key-pair.pem", "ec256-public.pem");
+        testSignature(Alg.PS256, "rsa-pss-256-private.pem", "rsa-pss-256-public.pem");
+    }
+
+    private static void testSignature(Alg alg, String privateKey, String publicKey) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        TokenTemplate template = new TokenTemplate(Optional.empty(), "{\"iss\":\"me\"}",
+                Algorithms.forSigning(alg, readPemObject(privateKey)));
+        Decoder.verify(template.encode(1L, EXPIRES_AT, "j", "s"), Algorithms.forVerifying(alg, readPemObject(publicKey)));
+    }
+
+    @Test
+    void rejectsVariableClaimsInPayload() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        Algorithm algorithm = Algorithms.forSigning(Alg.HS256, KeyUtil.random(32));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new TokenTemplate(Optional.empty(), "{\"iss\":\"me\",\"sub\":\"x\"}", algorithm));
+        assertThat(e).hasMessage(String.format(TokenTemplate.EXMSG_VARIABLE_CLAIM, "sub"));
+
+        assertThrows(IllegalArgumentException.class, () -> new TokenTemplate(Optional.empty(), "[]", algorithm));
+        assertThrows(IllegalArgumentException.class, () -> new TokenTemplate(Optional.empty(), "{\"n\":123456789012345678901234567890}", algorithm));
+        assertThrows(IllegalArgumentException.class, () -> new TokenTemplate(Optional.of("{"), "{}", algorithm));
+    }
+}
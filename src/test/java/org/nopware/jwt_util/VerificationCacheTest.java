@@ -0,0 +1,83 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerificationCacheTest {
+
+    private final Algorithm algorithm = Algorithm.HMAC256("secret");
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    private String token(String payloadJson) {
+        return Encoder.encode(Optional.empty(), payloadJson, algorithm);
+    }
+
+    @Test
+    void expiresAtExp() {
+        VerificationCache cache = new VerificationCache(10, Duration.ofHours(1), now::get);
+        // exp is 10 seconds later than now.
+        String token = token("{\"exp\":1700000010}");
+
+        assertThat(cache.isValid(token)).isFalse();
+        cache.putValid(token, Decoder.decode(token));
+        assertThat(cache.isValid(token)).isTrue();
+        assertThat(cache.isValid(token + "x")).isFalse();
+
+        now.addAndGet(9_999);
+        assertThat(cache.isValid(token)).isTrue();
+        now.addAndGet(1);
+        assertThat(cache.isValid(token)).isFalse();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    void expiresAfterMaxTtl() {
+        VerificationCache cache = new VerificationCache(10, Duration.ofSeconds(5), now::get);
+        String withoutExp = token("{\"sub\":\"1\"}");
+        String withLaterExp = token("{\"exp\":1700003600}");
+
+        cache.putValid(withoutExp, Decoder.decode(withoutExp));
+        cache.putValid(withLaterExp, Decoder.decode(withLaterExp));
+        now.addAndGet(4_999);
+        assertThat(cache.isValid(withoutExp)).isTrue();
+        assertThat(cache.isValid(withLaterExp)).isTrue();
+
+        now.addAndGet(1);
+        assertThat(cache.isValid(withoutExp)).isFalse();
+        assertThat(cache.isValid(withLaterExp)).isFalse();
+    }
+
+    @Test
+    void dropsOlderGeneration() {
+        VerificationCache cache = new VerificationCache(10, Duration.ofHours(1), now::get);
+        String token = token("{\"sub\":\"1\"}");
+
+        long generation = cache.generation();
+        cache.putValid(token, Decoder.decode(token), generation);
+        assertThat(cache.isValid(token)).isTrue();
+
+        cache.invalidateAll();
+        cache.putValid(token, Decoder.decode(token), generation);
+        assertThat(cache.isValid(token)).isFalse();
+
+        cache.putValid(token, Decoder.decode(token), cache.generation());
+        assertThat(cache.isValid(token)).isTrue();
+    }
+
+    @Test
+    void evictsWhenFull() {
+        VerificationCache cache = new VerificationCache(2, Duration.ofHours(1), now::get);
+        for (int i = 0; i < 10; i++) {
+            String token = token("{\"sub\":\"" + i + "\"}");
+            cache.putValid(token, Decoder.decode(token));
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,70 @@
+package org.nopware.jwt_util;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.google.common.io.Resources;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+class WarmupTest {
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = Resources.getResource(name).openStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    @Test
+    void verifyingWithPreloadedAlgorithms() throws IOException {
+        KeyFileAlgorithmResolver resolver = new KeyFileAlgorithmResolver(readResource("ec256-public.pem"));
+        resolver.preload();
+        assertThat(resolver.algorithms()).isNotEmpty();
+
+        List<Algorithm> algorithms = new ArrayList<>(resolver.algorithms());
+        // "none" is skipped.
+        algorithms.add(Algorithm.none());
+
+        assertDoesNotThrow(() -> Warmup.verifying(algorithms, 10));
+    }
+
+    @Test
+    void verifyingWithHmacSecret() throws IOException {
+        KeyFileAlgorithmResolver resolver = new KeyFileAlgorithmResolver(readResource("secret-hs256.bin"));
+        resolver.preload();
+
+        assertDoesNotThrow(() -> Warmup.verifying(resolver.algorithms(), 10));
+    }
+
+    @Test
+    void verifyingWithManyKeys() {
+        // e.g. a JWKS. Each algorithm is warmed up once.
+        List<Algorithm> algorithms = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            algorithms.add(Algorithm.HMAC256(KeyUtil.random(32)));
+            algorithms.add(Algorithm.HMAC512(KeyUtil.random(64)));
+        }
+
+        assertDoesNotThrow(() -> Warmup.verifying(algorithms, 10));
+    }
+
+    @Test
+    void preloadSkipsHmacForPem() throws IOException {
+        KeyFileAlgorithmResolver resolver = new KeyFileAlgorithmResolver(readResource("rsa-public.pem"));
+
+        assertThat(resolver.preload()).isNotEmpty().doesNotContain(Alg.HS256, Alg.HS384, Alg.HS512);
+    }
+
+    @Test
+    void signing() throws Exception {
+        Algorithm algorithm = Algorithms.forSigning(Alg.HS256, KeyUtil.random(32));
+
+        assertDoesNotThrow(() -> Warmup.signing(algorithm, Optional.of("{\"kid\":\"key-1\"}"), 10));
+    }
+}
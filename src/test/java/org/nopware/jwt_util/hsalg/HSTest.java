@@ -0,0 +1,97 @@
+package org.nopware.jwt_util.hsalg;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.jupiter.api.Test;
+import org.nopware.jwt_util.KeyUtil;
+
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HSTest {
+    private static final byte[] SECRET = KeyUtil.random(64);
+
+    @Test
+    public void testCompatibilityWithAuth0() throws Exception {
+        List<HS> ours = List.of(new HS256(SECRET), new HS384(SECRET), new HS512(SECRET));
+        List<Algorithm> theirs = List.of(Algorithm.HMAC256(SECRET), Algorithm.HMAC384(SECRET), Algorithm.HMAC512(SECRET));
+
+        for (int i = 0; i < ours.size(); i++) {
+            HS hs = ours.get(i);
+            Algorithm auth0 = theirs.get(i);
+
+            String signedByUs = JWT.create().withSubject("1234567890").sign(hs);
+            String signedByAuth0 = JWT.create().withSubject("1234567890").sign(auth0);
+            assertEquals(signedByAuth0, signedByUs);
+
+            assertDoesNotThrow(() -> auth0.verify(JWT.decode(signedByUs)));
+            assertDoesNotThrow(() -> hs.verify(JWT.decode(signedByAuth0)));
+        }
+    }
+
+    @Test
+    public void testVerifyRejectsWrongSignature() throws Exception {
+        HS256 hs256 = new HS256(SECRET);
+        String token = JWT.create().withSubject("1234567890").sign(hs256);
+        String otherToken = JWT.create().withSubject("1234567890").sign(new HS256(KeyUtil.random(64)));
+
+        DecodedJWT forged = JWT.decode(token.substring(0, token.lastIndexOf('.')) + otherToken.substring(otherToken.lastIndexOf('.')));
+        assertThrows(SignatureVerificationException.class, () -> hs256.verify(forged));
+
+        DecodedJWT truncated = JWT.decode(token.substring(0, token.length() - 4));
+        assertThrows(SignatureVerificationException.class, () -> hs256.verify(truncated));
+
+        DecodedJWT tooLong = JWT.decode(token + token.substring(token.lastIndexOf('.') + 1));
+        assertThrows(SignatureVerificationException.class, () -> hs256.verify(tooLong));
+    }
+
+    @Test
+    public void testVerifyChecksAlgorithmInHeader() throws Exception {
+        String token = JWT.create().sign(new HS384(SECRET));
+        assertThrows(AlgorithmMismatchException.class, () -> new HS256(SECRET).verify(JWT.decode(token)));
+    }
+
+    @Test
+    public void testSecretIsRequired() {
+        assertThrows(IllegalArgumentException.class, () -> new HS256(null));
+    }
+
+    @Test
+    public void testEmptySecretIsInvalid() {
+        assertThrows(InvalidKeySpecException.class, () -> new HS256(new byte[0]));
+        assertThrows(InvalidKeySpecException.class, () -> new HS384(new byte[0]));
+        assertThrows(InvalidKeySpecException.class, () -> new HS512(new byte[0]));
+    }
+
+    @Test
+    public void testSignAndVerifyRepeatedlyFromManyThreads() throws Exception {
+        HS512 hs512 = new HS512(SECRET);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 256; i++) {
+                String subject = "subject-" + i;
+                futures.add(executorService.submit(() -> {
+                    String token = JWT.create().withSubject(subject).sign(hs512);
+                    hs512.verify(JWT.decode(token));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.nopware.jwt_util.jwks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.nopware.jwt_util.Decoder;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwksAlgorithmResolverTest {
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static KeyPair rsaKeyPair;
+    private static KeyPair ecKeyPair;
+    private static JwksAlgorithmResolver resolver;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        KeyPairGenerator rsaGenerator = KeyPairGenerator.getInstance("RSA");
+        rsaGenerator.initialize(2048);
+        rsaKeyPair = rsaGenerator.generateKeyPair();
+
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        ecKeyPair = ecGenerator.generateKeyPair();
+
+        RSAPublicKey rsaPublicKey = (RSAPublicKey) rsaKeyPair.getPublic();
+        ECPublicKey ecPublicKey = (ECPublicKey) ecKeyPair.getPublic();
+        String jwks = """
+                {"keys": [
+                  {"kty": "RSA", "kid": "rsa", "use": "sig", "n": "%s", "e": "%s"},
+                  {"kty": "EC", "kid": "ec", "crv": "P-256", "alg": "ES256", "x": "%s", "y": "%s"},
+                  {"kty": "oct", "kid": "oct", "alg": "HS256", "k": "%s"},
+                  {"kty": "RSA", "kid": "enc", "use": "enc", "n": "%s", "e": "%s"}
+                ]}
+                """.formatted(
+                base64Url(rsaPublicKey.getModulus(), 0), base64Url(rsaPublicKey.getPublicExponent(), 0),
+                base64Url(ecPublicKey.getW().getAffineX(), 32), base64Url(ecPublicKey.getW().getAffineY(), 32),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(SECRET),
+                base64Url(rsaPublicKey.getModulus(), 0), base64Url(rsaPublicKey.getPublicExponent(), 0));
+        resolver = new JwksAlgorithmResolver(jwks.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String base64Url(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void assertVerified(String kid, Algorithm signing) throws Exception {
+        String jwt = JWT.create().withKeyId(kid).withSubject("test").sign(signing);
+        Algorithm verifying = resolver.resolve(Decoder.decode(jwt));
+        assertThat(Decoder.verify(jwt, verifying).getSubject()).isEqualTo("test");
+    }
+
+    @Test
+    void size() {
+        // RS256..PS512 for "rsa", ES256 for "ec", and HS256 for "oct". The key for encryption is ignored.
+        assertThat(resolver.size()).isEqualTo(8);
+    }
+
+    @Test
+    void resolveByKid() throws Exception {
+        RSAPrivateKey rsaPrivateKey = (RSAPrivateKey) rsaKeyPair.getPrivate();
+        assertVerified("rsa", Algorithm.RSA256(null, rsaPrivateKey));
+        assertVerified("rsa", Algorithm.RSA512(null, rsaPrivateKey));
+        assertVerified("ec", Algorithm.ECDSA256(null, (ECPrivateKey) ecKeyPair.getPrivate()));
+        assertVerified("oct", Algorithm.HMAC256(SECRET));
+    }
+
+    @Test
+    void unknownKid() {
+        String jwt = JWT.create().withKeyId("unknown").sign(Algorithm.HMAC256(SECRET));
+        JWTVerificationException e = assertThrows(JWTVerificationException.class, () -> resolver.resolve(Decoder.decode(jwt)));
+        assertThat(e.getMessage()).isEqualTo(String.format(JwksAlgorithmResolver.EXMSG_NO_KEY_FOR_TOKEN, "unknown", "HS256"));
+    }
+
+    @Test
+    void algNotAllowedForKey() {
+        // The key "oct" is only for HS256.
+        String jwt = JWT.create().withKeyId("oct").sign(Algorithm.HMAC384(SECRET));
+        assertThrows(JWTVerificationException.class, () -> resolver.resolve(Decoder.decode(jwt)));
+    }
+
+    @Test
+    void emptySecret() {
+        byte[] jwks = "{\"keys\": [{\"kty\": \"oct\", \"k\": \"\"}]}".getBytes(StandardCharsets.UTF_8);
+        assertThrows(InvalidKeySpecException.class, () -> new JwksAlgorithmResolver(jwks));
+    }
+
+    @Test
+    void noKeys() {
+        assertThrows(java.io.IOException.class, () -> new JwksAlgorithmResolver("{}".getBytes(StandardCharsets.UTF_8)));
+    }
+}
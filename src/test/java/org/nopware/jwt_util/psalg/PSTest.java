@@ -1,10 +1,9 @@
 package org.nopware.jwt_util.psalg;
 
 import com.google.common.io.Resources;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import org.junit.jupiter.api.Test;
-import org.nopware.jwt_util.Alg;
-import org.nopware.jwt_util.Algorithms;
-import org.nopware.jwt_util.KeyUtil;
+import org.nopware.jwt_util.*;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -16,8 +15,20 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SignatureException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PSTest {
@@ -49,6 +60,27 @@ class PSTest {
         assertTrue(b);
     }
 
+    @Test
+    public void testJdkProviderIsPreferred() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        PS verify = (PS) Algorithms.forVerifying(Alg.PS256, loadPemObject("rsa-pss-256-public.pem"));
+
+        // Even if BouncyCastle is registered globally by another test, the JDK provider is pinned.
+        assertEquals(PSProvider.JDK_PROVIDER_NAME, verify.provider().getProvider().getName());
+    }
+
+    @Test
+    public void testProviderCompatibility() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException, InvalidAlgorithmParameterException, SignatureException, InvalidKeyException {
+        RSAPrivateKey privateKey = KeyUtil.readRSAPSSPrivateKey(loadPemObject("rsa-pss-512-private.pem"));
+        RSAPublicKey publicKey = KeyUtil.readRSAPSSPublicKey(loadPemObject("rsa-pss-512-public.pem"));
+
+        PS jdk = new PS(512, publicKey, privateKey, PSProvider.jdk());
+        PS bouncyCastle = new PS(512, publicKey, privateKey, PSProvider.bouncyCastle(512));
+
+        byte[] message = "Hello, world!".getBytes();
+        assertTrue(bouncyCastle.doVerify(message, jdk.doSign(message)));
+        assertTrue(jdk.doVerify(message, bouncyCastle.doSign(message)));
+    }
+
     @Test
     public void testKeyCompatibility() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException, InvalidAlgorithmParameterException, SignatureException, InvalidKeyException {
         byte[] privateKeyBytes = loadPemObject("rsa-private.pem");
@@ -64,4 +96,44 @@ class PSTest {
 
         assertTrue(b);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDoSignAndDoVerifyRepeatedlyFromManyThreads() throws Exception {
+        byte[] privateKeyBytes = loadPemObject("rsa-pss-384-private.pem");
+        byte[] publicKeyBytes = loadPemObject("rsa-pss-384-public.pem");
+
+        PS sign = (PS) Algorithms.forSigning(Alg.PS384, privateKeyBytes);
+        PS verify = (PS) Algorithms.forVerifying(Alg.PS384, publicKeyBytes);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                byte[] message = ("Hello, world! " + i).getBytes();
+                futures.add(executorService.submit(() -> verify.doVerify(message, sign.doSign(message))));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        // A reused verifier must not remember the previous message.
+        byte[] signature = sign.doSign("Hello, world!".getBytes());
+        assertFalse(verify.doVerify("Goodbye, world!".getBytes(), signature));
+        assertTrue(verify.doVerify("Hello, world!".getBytes(), signature));
+    }
+
+    @Test
+    public void testVerifyChecksAlgorithmInHeader() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        byte[] privateKeyBytes = loadPemObject("rsa-private.pem");
+        byte[] publicKeyBytes = loadPemObject("rsa-public.pem");
+
+        String token = Encoder.encode(Optional.empty(), "{\"sub\":\"1234567890\"}", Algorithms.forSigning(Alg.PS256, privateKeyBytes));
+        DecodedJWT decodedJWT = Decoder.decode(token);
+
+        assertDoesNotThrow(() -> Algorithms.forVerifying(Alg.PS256, publicKeyBytes).verify(decodedJWT));
+        assertThrows(RuntimeException.class, () -> Algorithms.forVerifying(Alg.PS384, publicKeyBytes).verify(decodedJWT));
+    }
+}
@@ -0,0 +1,43 @@
+package org.nopware.jwt_util.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LineReaderTest {
+
+    @Test
+    void readLines() throws Exception {
+        LineReader reader = new LineReader(new StringReader("a\nbc\r\n\nlast"), 4);
+        assertThat(reader.readLine()).isEqualTo("a");
+        assertThat(reader.readLine()).isEqualTo("bc");
+        assertThat(reader.readLine()).isEqualTo("");
+        assertThat(reader.readLine()).isEqualTo("last");
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    void readLinesLongerThanBuffer() throws Exception {
+        String line = "x".repeat(20_000);
+        LineReader reader = new LineReader(new StringReader(line + "\r\n" + line + "\n"), line.length());
+        assertThat(reader.readLine()).isEqualTo(line);
+        assertThat(reader.readLine()).isEqualTo(line);
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    void rejectsTooLongLine() throws Exception {
+        LineReader reader = new LineReader(new StringReader("1234\n12345\n"), 4);
+        assertThat(reader.readLine()).isEqualTo("1234");
+        assertThatThrownBy(reader::readLine)
+                .isInstanceOf(LineReader.LineTooLongException.class)
+                .hasMessage(String.format(LineReader.EXMSG_LINE_TOO_LONG, 4));
+
+        // Not buffered until the end of the line.
+        LineReader endless = new LineReader(new StringReader("x".repeat(100_000)), 4);
+        assertThatThrownBy(endless::readLine).isInstanceOf(LineReader.LineTooLongException.class);
+    }
+}
@@ -0,0 +1,107 @@
+package org.nopware.jwt_util.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UnixDomainSocketServerTest {
+
+    @Test
+    void serve(@TempDir Path tmpDir) throws Exception {
+        Path socketPath = tmpDir.resolve("jwt-util.sock");
+        UnixDomainSocketServer server = new UnixDomainSocketServer(socketPath, new LineProtocolHandler(null, null, null));
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        serverThread.start();
+
+        try (SocketChannel socketChannel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            socketChannel.connect(UnixDomainSocketAddress.of(socketPath));
+            Writer writer = new OutputStreamWriter(Channels.newOutputStream(socketChannel), StandardCharsets.UTF_8);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(socketChannel), StandardCharsets.UTF_8));
+
+            // Pipelined requests.
+            writer.write("PING\nFOO\nPING\n");
+            writer.flush();
+
+            assertThat(reader.readLine()).isEqualTo(LineProtocolHandler.RES_OK);
+            assertThat(reader.readLine()).startsWith(LineProtocolHandler.RES_ERROR);
+            assertThat(reader.readLine()).isEqualTo(LineProtocolHandler.RES_OK);
+        } finally {
+            server.close();
+            serverThread.join(5000);
+        }
+
+        assertThat(serverThread.isAlive()).isFalse();
+        assertThat(Files.exists(socketPath)).isFalse();
+    }
+
+    @Test
+    void closesConnectionOnTooLongRequest(@TempDir Path tmpDir) throws Exception {
+        Path socketPath = tmpDir.resolve("jwt-util.sock");
+        UnixDomainSocketServer server = new UnixDomainSocketServer(socketPath, new LineProtocolHandler(null, null, null));
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        serverThread.start();
+
+        try (SocketChannel socketChannel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            socketChannel.connect(UnixDomainSocketAddress.of(socketPath));
+            Writer writer = new OutputStreamWriter(Channels.newOutputStream(socketChannel), StandardCharsets.UTF_8);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(socketChannel), StandardCharsets.UTF_8));
+
+            writer.write("PING\nVERIFY " + "x".repeat(UnixDomainSocketServer.MAX_REQUEST_LENGTH) + "\nPING\n");
+            writer.flush();
+
+            assertThat(reader.readLine()).isEqualTo(LineProtocolHandler.RES_OK);
+            assertThat(reader.readLine()).startsWith(LineProtocolHandler.RES_ERROR);
+            assertThat(reader.readLine()).isNull();
+        } finally {
+            server.close();
+            serverThread.join(5000);
+        }
+    }
+
+    @Test
+    void replacesStaleSocket(@TempDir Path tmpDir) throws Exception {
+        Path socketPath = tmpDir.resolve("jwt-util.sock");
+        // A socket file left by a previous process.
+        try (ServerSocketChannel stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            stale.bind(UnixDomainSocketAddress.of(socketPath));
+        }
+        assertThat(Files.exists(socketPath)).isTrue();
+
+        new UnixDomainSocketServer(socketPath, new LineProtocolHandler(null, null, null)).close();
+        assertThat(Files.exists(socketPath)).isFalse();
+    }
+
+    @Test
+    void refusesToReplaceRegularFile(@TempDir Path tmpDir) throws Exception {
+        Path notSocket = Files.writeString(tmpDir.resolve("important.txt"), "important");
+
+        assertThatThrownBy(() -> new UnixDomainSocketServer(notSocket, new LineProtocolHandler(null, null, null)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining(UnixDomainSocketServer.EXMSG_NOT_A_SOCKET);
+        assertThat(Files.readString(notSocket)).isEqualTo("important");
+    }
+}
@@ -0,0 +1,49 @@
+package org.nopware.jwt_util.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.count()).isZero();
+        assertThat(histogram.percentile(99)).isZero();
+        assertThat(histogram.max()).isZero();
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1000); // 1us to 100ms
+        }
+
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat(histogram.max()).isEqualTo(100_000_000L);
+        assertThat((double) histogram.percentile(50)).isCloseTo(50_000_000.0, within(50_000_000 * 0.02));
+        assertThat((double) histogram.percentile(99)).isCloseTo(99_000_000.0, within(99_000_000 * 0.02));
+        assertThat((double) histogram.percentile(99.9)).isCloseTo(99_900_000.0, within(99_900_000 * 0.02));
+        assertThat(histogram.percentile(100)).isEqualTo(histogram.max());
+
+        histogram.reset();
+        assertThat(histogram.count()).isZero();
+    }
+
+    @Test
+    void bucketsCoverAllValues() {
+        long[] values = {0, 1, 127, 128, 129, 1_000_000, Long.MAX_VALUE};
+        int previous = -1;
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(index).isGreaterThanOrEqualTo(previous);
+            assertThat(LatencyHistogram.highestValueOf(index)).isGreaterThanOrEqualTo(value);
+            previous = index;
+        }
+        // Small values are exact.
+        assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(100))).isEqualTo(100);
+    }
+}